@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.builder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/*
+ * Throughput per algorithm, the "cells" counter reports cells per second.
+ * Allocation rates come from the gc profiler enabled in the build.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MazeAlgorithmBenchmark {
+    @Param({"64", "512"})
+    public int size;
+
+    @Param({"dfs", "kruskal", "prim", "wilson", "eller", "binarytree", "sidewinder"})
+    public String algorithm;
+
+    private MazeBuilder builder;
+    private int[] data;
+    private long seed;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Cells {
+        public long cells;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        builder = MazeBuilder.with(size, size)
+                .setAlgorithm(MazeAlgorithm.of(algorithm));
+        data = new int[5];
+        seed = 0x5EEDL;
+    }
+
+    @Benchmark
+    public int[] create(Cells cells) {
+        builder
+                .fill()
+                .setStart(size / 2, size / 2)
+                .create(new Random(seed++), data, true);
+        cells.cells += (long) size * size;
+        return data;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.builder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MazeBuilderBenchmark {
+    @Param({"8", "64", "512", "4096"})
+    public int size;
+
+    @Param({"true"})
+    public boolean path;
+
+    @Param({"list", "packed", "linked", "parallel"})
+    public String mode;
+
+    private MazeBuilder builder;
+    private int[] data;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        builder = MazeBuilder.with(size, size)
+                .setMode(mode(mode));
+        data = new int[5];
+        seed = 0x5EEDL;
+    }
+
+    private static int mode(String mode) {
+        switch (mode) {
+            case "list": return MazeBuilder.MODE_LIST;
+            case "linked": return MazeBuilder.MODE_LINKED;
+            case "parallel": return MazeBuilder.MODE_PARALLEL;
+            default: return MazeBuilder.MODE_PACKED;
+        }
+    }
+
+    @Benchmark
+    public int[] create() {
+        builder
+                .fill()
+                .setStart(size / 2, size / 2)
+                .create(new Random(seed++), data, path);
+        return data;
+    }
+}
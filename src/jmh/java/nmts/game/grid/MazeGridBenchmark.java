@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.grid;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import nmts.game.builder.MazeBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static nmts.game.builder.MazeBuilder.WA;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MazeGridBenchmark {
+    public static final int SAMPLES = 1024;
+    public static final int WINDOW = 7;
+
+    @Param({"64", "1024", "4096"})
+    public int size;
+
+    @Param({"array", "compact"})
+    public String storage;
+
+    private int[][] jagged;
+    private BoundedMazeGrid grid;
+
+    private int[] wx, wy;
+    private int i;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random r = new Random(0x5EEDL);
+
+        grid = MazeBuilder.with(storage.equals("compact")
+                                ? new CompactMazeGrid(size, size)
+                                : new ArrayMazeGrid(size, size))
+                .setStart(0, 0)
+                .create(r, new int[5], true)
+                .getGrid();
+        jagged = grid.toArray();
+
+        wx = new int[SAMPLES];
+        wy = new int[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            wx[i] = r.nextInt(size);
+            wy[i] = r.nextInt(size);
+        }
+    }
+
+    @Benchmark
+    public int jaggedScan() {
+        int[][] m = jagged;
+        int c = 0;
+        for (int y = 0; y < m.length; y++) {
+            int[] row = m[y];
+            for (int x = 0; x < row.length; x++) {
+                c += Integer.bitCount(row[x] & WA);
+            }
+        }
+        return c;
+    }
+
+    @Benchmark
+    public int gridScan() {
+        MazeGrid m = grid;
+        int c = 0;
+        for (int y = 0, h = m.getHeight(), w = m.getWidth(); y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                c += Integer.bitCount(m.get(x, y) & WA);
+            }
+        }
+        return c;
+    }
+
+    @Benchmark
+    public int jaggedWindow() {
+        int s = i++ & SAMPLES - 1;
+
+        int[][] m = jagged;
+        int sx = Math.max(wx[s] - WINDOW / 2, 0), ex = Math.min(wx[s] + WINDOW / 2 + 1, size);
+        int sy = Math.max(wy[s] - WINDOW / 2, 0), ey = Math.min(wy[s] + WINDOW / 2 + 1, size);
+        int c = 0;
+        for (int y = sy; y < ey; y++) {
+            int[] row = m[y];
+            for (int x = sx; x < ex; x++) {
+                c += Integer.bitCount(row[x] & WA);
+            }
+        }
+        return c;
+    }
+
+    @Benchmark
+    public int gridWindow() {
+        int s = i++ & SAMPLES - 1;
+
+        MazeGrid m = grid;
+        int sx = Math.max(wx[s] - WINDOW / 2, 0), ex = Math.min(wx[s] + WINDOW / 2 + 1, size);
+        int sy = Math.max(wy[s] - WINDOW / 2, 0), ey = Math.min(wy[s] + WINDOW / 2 + 1, size);
+        int c = 0;
+        for (int y = sy; y < ey; y++) {
+            for (int x = sx; x < ex; x++) {
+                c += Integer.bitCount(m.get(x, y) & WA);
+            }
+        }
+        return c;
+    }
+}
@@ -0,0 +1,182 @@
+package nmts.game.holder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import nmts.game.builder.MazeBuilder;
+import nmts.game.grid.MazeGrid;
+import org.gvoid.engine.math.CastBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MazeColliderBenchmark {
+    public static final int SAMPLES = 1024;
+    public static final int CHECKS = 100000;
+
+    @Param({"8", "64"})
+    public int size;
+
+    @Param({"1", "2", "4"})
+    public int rad;
+
+    private MazeGrid maze;
+    private MazeCollider collider, mesh;
+    private GridCollider grid;
+    private double[] tr;
+    private float[] tf;
+    private CastBatch batch;
+
+    private float[] px, py, dx, dy;
+    private int i;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random r = new Random(0x5EEDL);
+
+        maze = MazeBuilder.with(size, size)
+                .setStart(0, 0)
+                .create(r, new int[5], true)
+                .getGrid();
+        collider = new MazeCollider(20);
+        mesh = new MazeCollider(20);
+        mesh.build(maze);
+        grid = new GridCollider();
+        grid.build(maze);
+        tr = new double[5];
+        tf = new float[5];
+
+        px = new float[SAMPLES];
+        py = new float[SAMPLES];
+        dx = new float[SAMPLES];
+        dy = new float[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            px[i] = r.nextInt(size) + 0.2f + r.nextFloat() * 0.6f;
+            py[i] = r.nextInt(size) + 0.2f + r.nextFloat() * 0.6f;
+            int dir = r.nextInt(4);
+            dx[i] = Maze.dirX(dir) * 0.05f;
+            dy[i] = Maze.dirY(dir) * 0.05f;
+        }
+
+        batch = new CastBatch(SAMPLES);
+        batch.size = SAMPLES;
+        for (int i = 0; i < SAMPLES; i++) {
+            batch.set(i, px[i], py[i], dx[i] * rad * 20f, dy[i] * rad * 20f, 0.12d);
+        }
+
+        checkFloatCasts(new Random(size));
+        checkGridCasts(new Random(size + 1));
+    }
+
+    // The player casts in float, it has to hit what the double path hits. Grazing
+    // contacts with wall ends lose a few 1e-5 in float, far below the player's step
+    private void checkFloatCasts(Random r) {
+        for (int i = 0; i < CHECKS; i++) {
+            float px = r.nextInt(size) + 0.15f + r.nextFloat() * 0.7f;
+            float py = r.nextInt(size) + 0.15f + r.nextFloat() * 0.7f;
+            double a = r.nextDouble() * Math.PI * 2d;
+            float l = r.nextFloat() * 0.1f;
+            float mdx = (float) Math.cos(a) * l, mdy = (float) Math.sin(a) * l;
+            int rd = (int) Math.ceil(l * 1.1f);
+
+            mesh.cover(maze, (int) px, (int) py, rd);
+            boolean hd = mesh.castSphere(tr, px, py, mdx, mdy, rd, 0.12d);
+            boolean hf = mesh.castSphere(tf, px, py, mdx, mdy, rd, 0.12f);
+            if (hd != hf || hd && (Math.abs(tr[2] - tf[2]) > 1e-3d
+                                   || Math.abs(tr[0] - tf[0]) > 1e-3d
+                                   || Math.abs(tr[1] - tf[1]) > 1e-3d)) {
+                throw new IllegalStateException(String.format(
+                        "Float cast differs at (%f, %f) towards (%f, %f)", px, py, mdx, mdy));
+            }
+        }
+    }
+
+    // Both colliders sweep the same walls, any circle clear of them has to hit the same
+    private void checkGridCasts(Random r) {
+        for (int i = 0; i < CHECKS * 3 / 2; i++) {
+            double cr = 0.05d + r.nextDouble() * 0.4d;
+            double cx = r.nextInt(size) + cr + r.nextDouble() * (1d - cr * 2d);
+            double cy = r.nextInt(size) + cr + r.nextDouble() * (1d - cr * 2d);
+            double a = r.nextDouble() * Math.PI * 2d;
+            if (r.nextInt(5) == 0) a = Math.round(a / (Math.PI / 2d)) * (Math.PI / 2d);
+            double d = r.nextDouble() * (r.nextBoolean() ? 0.2d : 4d);
+
+            boolean hm = mesh.castSphere(tr, cx, cy, Math.cos(a), Math.sin(a), d, cr);
+            double md = tr[2];
+            boolean hg = grid.castSphere(tr, cx, cy, Math.cos(a), Math.sin(a), d, cr);
+            if (hm != hg || hm && Math.abs(md - tr[2]) > 1e-9d) {
+                throw new IllegalStateException(String.format(
+                        "Grid cast differs at (%f, %f) angle %f distance %f radius %f", cx, cy, a, d, cr));
+            }
+        }
+    }
+
+    @Benchmark
+    public int insert() {
+        int s = i++ & SAMPLES - 1;
+
+        collider.clear();
+        collider.insert(maze, (int) px[s], (int) py[s], rad, 1d);
+        return collider.len();
+    }
+
+    @Benchmark
+    public boolean insertAndCast() {
+        int s = i++ & SAMPLES - 1;
+
+        collider.clear();
+        collider.insert(maze, (int) px[s], (int) py[s], rad, 1d);
+        return collider.castSphere(tr, px[s], py[s], dx[s], dy[s], rad, 0.12d);
+    }
+
+    @Benchmark
+    public boolean meshCast() {
+        int s = i++ & SAMPLES - 1;
+
+        mesh.cover(maze, (int) px[s], (int) py[s], rad);
+        return mesh.castSphere(tr, px[s], py[s], dx[s], dy[s], rad, 0.12d);
+    }
+
+    @Benchmark
+    public boolean meshCastFloat() {
+        int s = i++ & SAMPLES - 1;
+
+        mesh.cover(maze, (int) px[s], (int) py[s], rad);
+        return mesh.castSphere(tf, px[s], py[s], dx[s], dy[s], rad, 0.12f);
+    }
+
+    @Benchmark
+    public boolean gridCast() {
+        int s = i++ & SAMPLES - 1;
+
+        return grid.castSphere(tf, px[s], py[s], dx[s], dy[s], rad, 0.12f);
+    }
+
+    @Benchmark
+    public boolean meshCastExclude() {
+        int s = i++ & SAMPLES - 1;
+
+        mesh.cover(maze, (int) px[s], (int) py[s], rad);
+        return mesh.castSphere(tr, px[s], py[s], dx[s], dy[s], rad, 0.12d, true, true);
+    }
+
+    @Benchmark
+    public int[] meshBatchCast() {
+        mesh.castSpheres(batch, false);
+        return batch.hit;
+    }
+
+    @Benchmark
+    public int[] meshBatchCastParallel() {
+        mesh.castSpheres(batch, true);
+        return batch.hit;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gvoid.engine.math;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CMathBenchmark {
+    public static final int SAMPLES = 256;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int segments;
+
+    private double[] s;
+    private long[] es;
+    private double[] t;
+
+    private double[] px, py;
+    private int i;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random r = new Random(0x5EEDL);
+
+        int len = segments + 1;
+        s = new double[len * 2];
+        es = CMath.nBits(len);
+        for (int i = 0, ai = 0; i < len; i++) {
+            s[ai++] = r.nextDouble() * 1000d;
+            s[ai++] = r.nextDouble() * 1000d;
+            if (r.nextInt(4) == 0) CMath.set(es, i);
+        }
+        t = new double[5];
+
+        px = new double[SAMPLES];
+        py = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            px[i] = r.nextDouble() * 1000d;
+            py[i] = r.nextDouble() * 1000d;
+        }
+    }
+
+    @Benchmark
+    public int distToShape() {
+        int q = i++ & SAMPLES - 1;
+        return CMath.distToShape(t, s, es, segments + 1, px[q], py[q], true);
+    }
+
+    @Benchmark
+    public int distToShapeDir() {
+        int q = i++ & SAMPLES - 1;
+        return CMath.distToShape(t, s, es, segments + 1, px[q], py[q], 1d, 0d, Double.MAX_VALUE, true);
+    }
+
+    @Benchmark
+    public int castSphere() {
+        int q = i++ & SAMPLES - 1;
+        return CMath.castSphere(t, s, es, segments + 1, px[q], py[q], 1d, 0d, 10d, 0.5d, true);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gvoid.engine.math;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/*
+ * Compares the scalar and vector nearest segment kernels. The vector run
+ * needs --add-modules jdk.incubator.vector (set by the jmh task on JDK 16+)
+ * and falls back to the scalar kernel otherwise.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DistKernelBenchmark {
+    public static final int SAMPLES = 256;
+
+    @Param({"16", "256", "4096"})
+    public int segments;
+
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    private DistKernel kn;
+    private double[] ax, ay, bx, by;
+    private double[] t;
+
+    private double[] px, py;
+    private int i;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        kn = "vector".equals(kernel) && DistKernel.isVectorAvailable() ? DistKernel.VECTOR : DistKernel.SCALAR;
+
+        Random r = new Random(0x5EEDL);
+        double side = Math.sqrt(segments);
+        ax = new double[segments];
+        ay = new double[segments];
+        bx = new double[segments];
+        by = new double[segments];
+        for (int i = 0; i < segments; i++) {
+            double x = Math.floor(r.nextDouble() * side), y = Math.floor(r.nextDouble() * side);
+            boolean h = r.nextBoolean();
+            ax[i] = x;
+            ay[i] = y;
+            bx[i] = h ? x + 1d : x;
+            by[i] = h ? y : y + 1d;
+        }
+        t = new double[5];
+
+        px = new double[SAMPLES];
+        py = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            px[i] = r.nextDouble() * side;
+            py[i] = r.nextDouble() * side;
+        }
+    }
+
+    @Benchmark
+    public int nearest() {
+        int q = i++ & SAMPLES - 1;
+        return kn.nearest(t, ax, ay, bx, by, 0, segments, px[q], py[q], 0d, 0d, Double.MAX_VALUE, true);
+    }
+
+    @Benchmark
+    public int nearestFront() {
+        int q = i++ & SAMPLES - 1;
+        return kn.nearest(t, ax, ay, bx, by, 0, segments, px[q], py[q], 0.6d, 0.8d, Double.MAX_VALUE, true);
+    }
+}
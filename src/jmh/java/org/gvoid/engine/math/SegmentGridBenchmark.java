@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gvoid.engine.math;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SegmentGridBenchmark {
+    public static final int SAMPLES = 256;
+
+    @Param({"1000", "100000", "1000000"})
+    public int segments;
+
+    private double[] s;
+    private long[] es;
+    private Segments seg;
+    private double[] t;
+    private SegmentGrid index;
+
+    private double[] px, py;
+    private int i;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random r = new Random(0x5EEDL);
+        double side = Math.sqrt(segments);
+
+        // Unit wall pieces on a grid, joined by skipped segments like a maze mesh
+        int len = segments * 2;
+        s = new double[len * 2];
+        es = CMath.nBits(len);
+        seg = new Segments(segments);
+        for (int i = 0, ai = 0; i < segments; i++) {
+            double x = Math.floor(r.nextDouble() * side), y = Math.floor(r.nextDouble() * side);
+            boolean h = r.nextBoolean();
+            s[ai++] = x;
+            s[ai++] = y;
+            s[ai++] = h ? x + 1d : x;
+            s[ai++] = h ? y : y + 1d;
+            if (i > 0) CMath.set(es, i * 2);
+            seg.add(x, y, h ? x + 1d : x, h ? y : y + 1d);
+        }
+        t = new double[5];
+        index = new SegmentGrid();
+        index.build(seg, 1d);
+
+        px = new double[SAMPLES];
+        py = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            px[i] = r.nextDouble() * side;
+            py[i] = r.nextDouble() * side;
+        }
+    }
+
+    @Benchmark
+    public int linear() {
+        int q = i++ & SAMPLES - 1;
+        return CMath.distToShape(t, s, es, segments * 2, px[q], py[q], 2.25d, true);
+    }
+
+    @Benchmark
+    public int segments() {
+        int q = i++ & SAMPLES - 1;
+        return seg.distToShape(t, null, px[q], py[q], 0d, 0d, 2.25d, true, false);
+    }
+
+    @Benchmark
+    public int indexed() {
+        int q = i++ & SAMPLES - 1;
+        return index.distToShape(t, null, px[q], py[q], 0d, 0d, 2.25d, true, false);
+    }
+}
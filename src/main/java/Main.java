@@ -8,8 +8,7 @@ import nmts.game.screen.TestScreen3;
 public class Main {
     @SuppressWarnings("SpellCheckingInspection")
     public static void main(String[] args) {
-        GameFrame frame = new GameFrame();
-
+        boolean antialias = true, canvas = false;
         int flags = 0;
         if (args != null) {
             for (int i = 0; i < args.length; i++) {
@@ -20,7 +19,9 @@ public class Main {
                 } else cmd = cmd.substring(1);
 
                 if (cmd.equals("-antialias") || cmd.equals("-anti") || cmd.equals("-a")) {
-                    frame.setAntialias(false);
+                    antialias = false;
+                } else if (cmd.equals("c") || cmd.equals("canvas")) {
+                    canvas = true;
                 } else if (cmd.equals("r") || cmd.equals("rv") || cmd.equals("rotview") || cmd.equals("rotateview")) {
                     flags |= PlayScreen.FLAG_ROTATE_VIEW;
                 } else if (cmd.equals("i") || cmd.equals("im") || cmd.equals("infmoves") || cmd.equals("infinitemoves")) {
@@ -39,10 +40,17 @@ public class Main {
                     flags |= PlayScreen.FLAG_HIDE_WALLS;
                 } else if (cmd.equals("vt") || cmd.equals("viewtime") || cmd.equals("time")) {
                     flags |= PlayScreen.FLAG_SHOW_TIMER;
+                } else if (cmd.equals("e") || cmd.equals("endless")) {
+                    flags |= PlayScreen.FLAG_ENDLESS;
+                } else if (cmd.equals("g") || cmd.equals("gc") || cmd.equals("gridcollision")) {
+                    flags |= PlayScreen.FLAG_GRID_COLLISION;
                 }
             }
         }
 
+        GameFrame frame = new GameFrame(canvas);
+        if (!antialias) frame.setAntialias(false);
+
         frame.setGame(new PlayScreen(flags));
         //frame.setGame(new TestScreen());
         //frame.setGame(new TestScreen2());
@@ -18,7 +18,8 @@ package nmts.game;
 
 public class Config {
     /* ---------------- Game ---------------- */
-    public static final int CPS = -1;
+    public static final int FPS = 60;
+    public static final int CPS = 120;
 
     public static final boolean ANTIALIASING = true;
 
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.builder;
+
+import java.util.Random;
+import nmts.game.grid.BoundedMazeGrid;
+
+import static nmts.game.builder.MazeBuilder.*;
+
+public final class BinaryTreeAlgorithm implements MazeAlgorithm {
+    private final MazeSolver solver = new MazeSolver();
+
+    @Override
+    public void create(BoundedMazeGrid grid, int sx, int sy, Random r, int[] n, boolean p) {
+        int w = grid.getWidth(), h = grid.getHeight();
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                if (x > 0 && (y == 0 || r.nextBoolean())) open(grid, x, y, 0);
+                else if (y > 0) open(grid, x, y, 1);
+            }
+        }
+
+        solver.solve(grid, sx, sy, n, p);
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.builder;
+
+import java.util.Random;
+import nmts.game.grid.BoundedMazeGrid;
+
+public final class DepthFirstAlgorithm implements MazeAlgorithm {
+    private final int mode;
+    private MazeBuilder builder;
+
+    public DepthFirstAlgorithm(int mode) {
+        this.mode = mode;
+    }
+
+    @Override
+    public void create(BoundedMazeGrid grid, int sx, int sy, Random r, int[] n, boolean p) {
+        if (builder == null || builder.getGrid() != grid) {
+            builder = MazeBuilder.with(grid).setMode(mode);
+        }
+        builder.setStart(sx, sy).create(r, n, p);
+    }
+}
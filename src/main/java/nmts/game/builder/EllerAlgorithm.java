@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.builder;
+
+import java.util.Random;
+import nmts.game.grid.BoundedMazeGrid;
+
+public final class EllerAlgorithm implements MazeAlgorithm {
+    private final MazeSolver solver = new MazeSolver();
+    private MazeStream stream;
+
+    @Override
+    public void create(BoundedMazeGrid grid, int sx, int sy, Random r, int[] n, boolean p) {
+        int w = grid.getWidth(), h = grid.getHeight();
+        if (stream == null || stream.getWidth() != w || stream.getHeight() != h) {
+            stream = MazeStream.with(w, h);
+        }
+
+        stream.generate(r, (y, row) -> {
+            for (int x = 0; x < w; x++) {
+                grid.set(x, y, row[x]);
+            }
+        });
+
+        solver.solve(grid, sx, sy, n, p);
+    }
+}
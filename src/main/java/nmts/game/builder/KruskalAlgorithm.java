@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.builder;
+
+import java.util.Random;
+import nmts.game.grid.BoundedMazeGrid;
+
+import static nmts.game.builder.MazeBuilder.*;
+
+public final class KruskalAlgorithm implements MazeAlgorithm {
+    private final MazeSolver solver = new MazeSolver();
+
+    @Override
+    public void create(BoundedMazeGrid grid, int sx, int sy, Random r, int[] n, boolean p) {
+        int w = grid.getWidth(), h = grid.getHeight();
+        if ((long) w * (long) h > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Grid too large");
+        }
+
+        // Edge i << 1 opens the right, i << 1 | 1 the bottom wall of cell i
+        int[] edges = new int[w * h * 2];
+        int ec = 0;
+        for (int y = 0, i = 0; y < h; y++) {
+            for (int x = 0; x < w; x++, i++) {
+                if (x < w - 1) edges[ec++] = i << 1;
+                if (y < h - 1) edges[ec++] = i << 1 | 1;
+            }
+        }
+
+        int[] uf = new int[w * h];
+        for (int i = 0; i < uf.length; i++) {
+            uf[i] = i;
+        }
+
+        for (int k = 0; k < ec; k++) {
+            int j = k + r.nextInt(ec - k), e = edges[j];
+            edges[j] = edges[k];
+
+            int a = e >>> 1;
+            boolean down = (e & 0x1) != 0;
+            int ra = find(uf, a), rb = find(uf, down ? a + w : a + 1);
+            if (ra == rb) continue;
+            uf[ra] = rb;
+
+            open(grid, a % w, a / w, down ? 3 : 2);
+        }
+
+        solver.solve(grid, sx, sy, n, p);
+    }
+
+    private static int find(int[] uf, int i) {
+        while (uf[i] != i) {
+            i = uf[i] = uf[uf[i]];
+        }
+        return i;
+    }
+}
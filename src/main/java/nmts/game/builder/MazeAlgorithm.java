@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.builder;
+
+import java.util.Random;
+import nmts.game.grid.BoundedMazeGrid;
+
+/*
+ * Carves a perfect maze into a grid filled with MazeBuilder.WA, starting at
+ * (sx, sy). Implementations set the same flags as MazeBuilder.create: walls,
+ * M for every cell, S at the start, E at the farthest cell and the P* path
+ * from start to end if p is set. n[] receives start, path length and end.
+ */
+public interface MazeAlgorithm {
+    void create(BoundedMazeGrid grid, int sx, int sy, Random r, int[] n, boolean p);
+
+    static MazeAlgorithm of(String name) {
+        switch (name) {
+            case "dfs": return new DepthFirstAlgorithm(MazeBuilder.MODE_PACKED);
+            case "kruskal": return new KruskalAlgorithm();
+            case "prim": return new PrimAlgorithm();
+            case "wilson": return new WilsonAlgorithm();
+            case "eller": return new EllerAlgorithm();
+            case "binarytree": return new BinaryTreeAlgorithm();
+            case "sidewinder": return new SidewinderAlgorithm();
+            default: throw new IllegalArgumentException("Unknown algorithm");
+        }
+    }
+}
@@ -17,8 +17,14 @@
 package nmts.game.builder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import nmts.game.grid.ArrayMazeGrid;
+import nmts.game.grid.BoundedMazeGrid;
+import nmts.game.grid.CompactMazeGrid;
+import nmts.game.grid.MazeGrid;
 
 @SuppressWarnings("unused")
 public final class MazeBuilder {
@@ -39,45 +45,55 @@ public final class MazeBuilder {
     public static final int PB = 0x1 << 24;
     public static final int PA = PL | PT | PR | PB;
 
+    public static final int LD = 0x3;
+
+    public static final int MODE_LIST = 0;
+    public static final int MODE_PACKED = 1;
+    public static final int MODE_LINKED = 2;
+    public static final int MODE_PARALLEL = 3;
+
+    static final int[] WD = {WL, WT, WR, WB};
+    static final int[] PD = {PL, PT, PR, PB};
+
     /* -------- Initialization -------- */
     public static MazeBuilder with(int width, int height) {
-        return new MazeBuilder(width, height);
+        return new MazeBuilder(new ArrayMazeGrid(width, height));
+    }
+
+    public static MazeBuilder with(BoundedMazeGrid grid) {
+        return new MazeBuilder(grid);
     }
 
     /* -------- Builder --------------- */
-    private final int[][] mMaze;
+    private final BoundedMazeGrid mGrid;
     private final int mWidth, mHeight;
 
     private int mSx, mSy;
+    private int mMode;
+    private MazeAlgorithm mAlgorithm;
+
+    private long[] mStack, mPathStack;
 
-    private MazeBuilder(int width, int height) {
-        if (width <= 0 || height <= 0) {
+    private MazeBuilder(BoundedMazeGrid grid) {
+        if (grid == null) {
+            throw new NullPointerException("Grid must not be null");
+        }
+        if (grid.getWidth() <= 0 || grid.getHeight() <= 0) {
             throw new IllegalArgumentException("Width and height must be at least 1");
         }
 
-        mMaze = new int[height][width];
-        mWidth = width;
-        mHeight = height;
+        mGrid = grid;
+        mWidth = grid.getWidth();
+        mHeight = grid.getHeight();
+
+        mMode = MODE_PACKED;
 
         fill();
     }
 
-    @SuppressWarnings({
-            "UnusedReturnValue",
-            "UnnecessaryLocalVariable"
-    })
+    @SuppressWarnings("UnusedReturnValue")
     public MazeBuilder fill() {
-        int[][] maze = mMaze;
-
-        int width = mWidth;
-        int height = mHeight;
-
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                maze[y][x] = WA;
-            }
-        }
-
+        mGrid.fill(WA);
         return this;
     }
 
@@ -111,6 +127,33 @@ public final class MazeBuilder {
         return this;
     }
 
+    public MazeBuilder setMode(int mode) {
+        if (mode != MODE_LIST && mode != MODE_PACKED && mode != MODE_LINKED && mode != MODE_PARALLEL) {
+            throw new IllegalArgumentException("Invalid mode");
+        }
+        if (mode == MODE_LINKED && mGrid instanceof CompactMazeGrid) {
+            throw new IllegalArgumentException("Grid can not store links");
+        }
+        if (mode == MODE_PARALLEL && !(mGrid instanceof ArrayMazeGrid)) {
+            throw new IllegalArgumentException("Grid can not be carved concurrently");
+        }
+        mMode = mode;
+        return this;
+    }
+
+    public int getMode() {
+        return mMode;
+    }
+
+    public MazeBuilder setAlgorithm(MazeAlgorithm algorithm) {
+        mAlgorithm = algorithm;
+        return this;
+    }
+
+    public MazeAlgorithm getAlgorithm() {
+        return mAlgorithm;
+    }
+
     public int getWidth() {
         return mWidth;
     }
@@ -119,11 +162,51 @@ public final class MazeBuilder {
         return mHeight;
     }
 
+    public BoundedMazeGrid getGrid() {
+        return mGrid;
+    }
+
+    /*
+     * Returns a snapshot copy of the grid, O(width * height) per call, and
+     * writes to it never reach the builder. Use getGrid() for live access.
+     */
+    @Deprecated
     public int[][] getMaze() {
-        return mMaze;
+        return mGrid.toArray();
     }
 
     public MazeBuilder create(Random r, int[] n, boolean p) {
+        if (mAlgorithm != null) {
+            mAlgorithm.create(mGrid, mSx, mSy, r != null ? r : new Random(), n, p);
+            return this;
+        }
+        if (mMode == MODE_PACKED) return createPacked(r, n, p);
+        else if (mMode == MODE_LINKED) return createLinked(r, n, p);
+        else if (mMode == MODE_PARALLEL) return createParallel(r, n, p);
+        else return createList(r, n, p);
+    }
+
+    private MazeBuilder createParallel(Random r, int[] n, boolean p) {
+        if (!ParallelCarver.worth(mWidth, mHeight)) {
+            return createPacked(r, n, p);
+        }
+        if (r == null) {
+            r = new Random();
+        }
+        if (n != null) {
+            for (int i = 0; i < 5; i++) {
+                n[i] = -1;
+            }
+            n[0] = mSx;
+            n[1] = mSy;
+        }
+
+        new ParallelCarver((ArrayMazeGrid) mGrid, mSx, mSy)
+                .create(r, n, p, ForkJoinPool.commonPool());
+        return this;
+    }
+
+    private MazeBuilder createList(Random r, int[] n, boolean p) {
         if (r == null) {
             r = new Random();
         }
@@ -133,8 +216,8 @@ public final class MazeBuilder {
             }
         }
 
-        int[][] m = mMaze;
-        int w = mWidth, h = mHeight, s = w * h;
+        MazeGrid m = mGrid;
+        int s = mWidth * mHeight;
         int sx = mSx, sy = mSy;
 
         if (n != null) {
@@ -142,7 +225,6 @@ public final class MazeBuilder {
             n[1] = sy;
         }
 
-        int[] di = new int[] {w, h};
         int[] sc = new int[] {sx, sy};
         boolean[][] mm = new boolean[3][3];
 
@@ -151,7 +233,7 @@ public final class MazeBuilder {
         List<int[]> ps = p ? new ArrayList<>(s) : null;
         List<int[]> eps = p ? new ArrayList<>(s) : null;
 
-        m[sy][sx] |= M | S;
+        m.add(sx, sy, M | S);
         cs.add(cl++, sc);
         if (p) ps.add(pl++, sc);
 
@@ -160,7 +242,7 @@ public final class MazeBuilder {
 
         while (cl > 0) {
             int[] c = cs.remove(--cl);
-            int mc = map(m, di, c, 1, M, true, mm);
+            int mc = map(m, c, 1, M, true, mm);
             if (mc <= 0) {
                 int[] pc = null;
                 if (p) pc = ps.remove(--pl);
@@ -180,7 +262,7 @@ public final class MazeBuilder {
             int nx = x + nxr, ny = y + nyr;
             int[] nc = new int[] {nx, ny, nxr, nyr};
 
-            m[ny][nx] |= M;
+            m.add(nx, ny, M);
             cs.add(cl++, nc);
             if (p) ps.add(pl++, nc);
 
@@ -194,21 +276,21 @@ public final class MazeBuilder {
             }
 
             if (nxr < 0) {
-                m[y][x] &= ~WL;
-                m[ny][nx] &= ~WR;
+                m.remove(x, y, WL);
+                m.remove(nx, ny, WR);
             } else if (nyr < 0) {
-                m[y][x] &= ~WT;
-                m[ny][nx] &= ~WB;
+                m.remove(x, y, WT);
+                m.remove(nx, ny, WB);
             } else if (nxr > 0) {
-                m[y][x] &= ~WR;
-                m[ny][nx] &= ~WL;
+                m.remove(x, y, WR);
+                m.remove(nx, ny, WL);
             } else if (nyr > 0) {
-                m[y][x] &= ~WB;
-                m[ny][nx] &= ~WT;
+                m.remove(x, y, WB);
+                m.remove(nx, ny, WT);
             }
         }
 
-        if (e != null) m[e[1]][e[0]] |= E;
+        if (e != null) m.add(e[0], e[1], E);
         if (p && epl > 0) {
             int[] pc = eps.remove(--epl);
             while (epl > 0) {
@@ -217,10 +299,10 @@ public final class MazeBuilder {
                 int x = pc[0], y = pc[1];
                 int nxr = npc[2], nyr = npc[3];
 
-                if (nxr < 0) m[y][x] |= PL;
-                else if (nyr < 0) m[y][x] |= PT;
-                else if (nxr > 0) m[y][x] |= PR;
-                else if (nyr > 0) m[y][x] |= PB;
+                if (nxr < 0) m.add(x, y, PL);
+                else if (nyr < 0) m.add(x, y, PT);
+                else if (nxr > 0) m.add(x, y, PR);
+                else if (nyr > 0) m.add(x, y, PB);
 
                 pc = npc;
             }
@@ -235,6 +317,216 @@ public final class MazeBuilder {
         return this;
     }
 
+    private MazeBuilder createPacked(Random r, int[] n, boolean p) {
+        if (r == null) {
+            r = new Random();
+        }
+        if (n != null) {
+            for (int i = 0; i < 5; i++) {
+                n[i] = -1;
+            }
+        }
+
+        MazeGrid m = mGrid;
+        int w = mWidth, h = mHeight;
+        int sx = mSx, sy = mSy;
+
+        if (n != null) {
+            n[0] = sx;
+            n[1] = sy;
+        }
+
+        long[] cs = grow(mStack, 0), eps = p ? grow(mPathStack, 0) : null;
+        int cl = 0, epl = 0;
+
+        m.add(sx, sy, M | S);
+        cs[cl++] = pack(sx, sy, 0);
+
+        long e = -1L;
+        int l = 1, el = 0;
+
+        while (cl > 0) {
+            long c = cs[cl - 1];
+            int x = unpackX(c), y = unpackY(c);
+
+            int mc = 0;
+            if (x > 0 && (m.get(x - 1, y) & M) == 0) mc |= 0x1;
+            if (y > 0 && (m.get(x, y - 1) & M) == 0) mc |= 0x2;
+            if (x < w - 1 && (m.get(x + 1, y) & M) == 0) mc |= 0x4;
+            if (y < h - 1 && (m.get(x, y + 1) & M) == 0) mc |= 0x8;
+            if (mc == 0) {
+                cl--;
+                if (p & el - epl >= l--) {
+                    eps = grow(eps, epl);
+                    eps[epl++] = c;
+                }
+                continue;
+            } else l++;
+
+            int t = 5, v = 0;
+            do {
+                int nv = --t > 1 ? r.nextInt(t) : 1;
+                v = (v + nv) % 4;
+            } while ((mc & 0x1 << v) == 0);
+            int nx = x + (v - 1) % 2, ny = y + (v - 2) % 2;
+            long nc = pack(nx, ny, v);
+
+            m.add(nx, ny, M);
+            cs = grow(cs, cl);
+            cs[cl++] = nc;
+
+            if (l >= el) {
+                el = l;
+                e = nc;
+            }
+            if (l >= el && p && epl > 0) {
+                epl = 0;
+            }
+
+            m.remove(x, y, WD[v]);
+            m.remove(nx, ny, WD[v + 2 & 0x3]);
+        }
+
+        if (e >= 0L) m.add(unpackX(e), unpackY(e), E);
+        if (p && epl > 0) {
+            long pc = eps[--epl];
+            while (epl > 0) {
+                long npc = eps[--epl];
+                m.add(unpackX(pc), unpackY(pc), PD[unpackDir(npc)]);
+                pc = npc;
+            }
+        }
+
+        if (e >= 0L && n != null) {
+            n[2] = el;
+            n[3] = unpackX(e);
+            n[4] = unpackY(e);
+        }
+
+        mStack = cs;
+        if (p) mPathStack = eps;
+
+        return this;
+    }
+
+    private MazeBuilder createLinked(Random r, int[] n, boolean p) {
+        if (r == null) {
+            r = new Random();
+        }
+        if (n != null) {
+            for (int i = 0; i < 5; i++) {
+                n[i] = -1;
+            }
+        }
+
+        MazeGrid m = mGrid;
+        int w = mWidth, h = mHeight;
+        int sx = mSx, sy = mSy;
+
+        if (n != null) {
+            n[0] = sx;
+            n[1] = sy;
+        }
+
+        m.add(sx, sy, M | S);
+
+        int x = sx, y = sy, ex = -1, ey = -1;
+        int l = 1, el = 0;
+
+        for (;;) {
+            int mc = 0;
+            if (x > 0 && (m.get(x - 1, y) & M) == 0) mc |= 0x1;
+            if (y > 0 && (m.get(x, y - 1) & M) == 0) mc |= 0x2;
+            if (x < w - 1 && (m.get(x + 1, y) & M) == 0) mc |= 0x4;
+            if (y < h - 1 && (m.get(x, y + 1) & M) == 0) mc |= 0x8;
+            if (mc == 0) {
+                if (x == sx && y == sy) break;
+                int v = m.get(x, y) & LD;
+                x -= (v - 1) % 2;
+                y -= (v - 2) % 2;
+                l--;
+                continue;
+            } else l++;
+
+            int t = 5, v = 0;
+            do {
+                int nv = --t > 1 ? r.nextInt(t) : 1;
+                v = (v + nv) % 4;
+            } while ((mc & 0x1 << v) == 0);
+            int nx = x + (v - 1) % 2, ny = y + (v - 2) % 2;
+
+            m.add(nx, ny, M | v);
+
+            if (l >= el) {
+                el = l;
+                ex = nx;
+                ey = ny;
+            }
+
+            m.remove(x, y, WD[v]);
+            m.remove(nx, ny, WD[v + 2 & 0x3]);
+
+            x = nx;
+            y = ny;
+        }
+
+        if (ex >= 0) {
+            m.add(ex, ey, E);
+            if (p) {
+                x = ex;
+                y = ey;
+                while (x != sx || y != sy) {
+                    int v = m.get(x, y) & LD;
+                    x -= (v - 1) % 2;
+                    y -= (v - 2) % 2;
+                    m.add(x, y, PD[v]);
+                }
+            }
+        }
+
+        for (y = 0; y < h; y++) {
+            for (x = 0; x < w; x++) {
+                if ((m.get(x, y) & LD) != 0) m.remove(x, y, LD);
+            }
+        }
+
+        if (ex >= 0 && n != null) {
+            n[2] = el;
+            n[3] = ex;
+            n[4] = ey;
+        }
+
+        return this;
+    }
+
+    static void open(MazeGrid m, int x, int y, int v) {
+        int nx = x + (v - 1) % 2, ny = y + (v - 2) % 2;
+        m.set(x, y, m.get(x, y) & ~WD[v] | M);
+        m.set(nx, ny, m.get(nx, ny) & ~WD[v + 2 & 0x3] | M);
+    }
+
+    static long[] grow(long[] stack, int len) {
+        if (stack == null) return new long[16];
+        if (len < stack.length) return stack;
+        return Arrays.copyOf(stack, stack.length * 2);
+    }
+
+    private static long pack(int x, int y, int dir) {
+        return (long) x << 32 | (long) y << 2 | dir;
+    }
+
+    private static int unpackX(long c) {
+        return (int) (c >>> 32);
+    }
+
+    private static int unpackY(long c) {
+        return (int) c >>> 2;
+    }
+
+    private static int unpackDir(long c) {
+        return (int) c & 0x3;
+    }
+
     public static int map(int[][] src, int[] dim, int[] pos, int shape, int mask, boolean zero, boolean[][] dest) {
         int w = dim[0], h = dim[1], c = 0, v;
         for (int y = 0, ys = pos[1] - 1; y < 3; y++, ys++) {
@@ -253,4 +545,23 @@ public final class MazeBuilder {
         }
         return c;
     }
+
+    public static int map(MazeGrid src, int[] pos, int shape, int mask, boolean zero, boolean[][] dest) {
+        int w = src.getWidth(), h = src.getHeight(), c = 0, v;
+        for (int y = 0, ys = pos[1] - 1; y < 3; y++, ys++) {
+            for (int x = 0, xs = pos[0] - 1; x < 3; x++, xs++) {
+                //noinspection StatementWithEmptyBody
+                if (shape == 0) ;
+                else if (shape == 1 && x % 2 == y % 2) continue;
+                else if (shape == 2 && x % 2 == 0 & y % 2 == 0) continue;
+                else if (shape == 3 && x % 2 != y % 2) continue;
+                else if (shape == 4 && x % 2 != 0 | y % 2 != 0) continue;
+                boolean is;
+                dest[y][x] = is = (xs | ys | w - 1 - xs | h - 1 - ys) >= 0
+                        && zero & (v = src.get(xs, ys) & mask) == 0 | !zero & v != 0;
+                if (is) c++;
+            }
+        }
+        return c;
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.builder;
+
+import nmts.game.grid.MazeGrid;
+
+import static nmts.game.builder.MazeBuilder.*;
+
+/*
+ * Marks start, end and path of a carved perfect maze. The maze is a tree,
+ * so a depth first walk that never steps back to the previous cell visits
+ * every cell once and its depth is the path length from the start.
+ */
+final class MazeSolver {
+    private long[] mStack;
+    private int mLen;
+    private int mEx, mEy, mEl;
+
+    void solve(MazeGrid m, int sx, int sy, int[] n, boolean p) {
+        if (n != null) {
+            for (int i = 0; i < 5; i++) {
+                n[i] = -1;
+            }
+            n[0] = sx;
+            n[1] = sy;
+        }
+
+        m.add(sx, sy, M | S);
+
+        walk(m, sx, sy, -1, -1);
+        int ex = mEx, ey = mEy, el = mEl;
+        if (el <= 1) return;
+
+        m.add(ex, ey, E);
+        if (p) {
+            walk(m, sx, sy, ex, ey);
+            long[] cs = mStack;
+            for (int i = 0, len = mLen - 1; i < len; i++) {
+                long c = cs[i];
+                m.add(unpackX(c), unpackY(c), PD[(int) (c & 0x7) - 1]);
+            }
+        }
+
+        if (n != null) {
+            n[2] = el;
+            n[3] = ex;
+            n[4] = ey;
+        }
+    }
+
+    private void walk(MazeGrid m, int sx, int sy, int tx, int ty) {
+        int w = m.getWidth(), h = m.getHeight();
+        long[] cs = grow(mStack, 0);
+        int cl = 0;
+
+        cs[cl++] = pack(sx, sy, 0);
+        mEx = sx;
+        mEy = sy;
+        mEl = 1;
+
+        while (cl > 0) {
+            long c = cs[cl - 1];
+            int v = (int) (c & 0x7);
+            if (v > 3) {
+                cl--;
+                continue;
+            }
+            cs[cl - 1] = c + 1;
+
+            int x = unpackX(c), y = unpackY(c);
+            if ((m.get(x, y) & WD[v]) != 0) continue;
+            int nx = x + (v - 1) % 2, ny = y + (v - 2) % 2;
+            if ((nx | ny | w - 1 - nx | h - 1 - ny) < 0) continue;
+            if (cl > 1) {
+                long pc = cs[cl - 2];
+                if (unpackX(pc) == nx && unpackY(pc) == ny) continue;
+            }
+
+            cs = grow(cs, cl);
+            cs[cl++] = pack(nx, ny, 0);
+
+            if (cl >= mEl) {
+                mEl = cl;
+                mEx = nx;
+                mEy = ny;
+            }
+            if (nx == tx && ny == ty) break;
+        }
+
+        mStack = cs;
+        mLen = cl;
+    }
+
+    private static long pack(int x, int y, int v) {
+        return (long) x << 32 | (long) y << 3 | v;
+    }
+
+    private static int unpackX(long c) {
+        return (int) (c >>> 32);
+    }
+
+    private static int unpackY(long c) {
+        return (int) c >>> 3;
+    }
+}
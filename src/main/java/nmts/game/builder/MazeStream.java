@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.builder;
+
+import java.nio.IntBuffer;
+import java.util.Random;
+
+import static nmts.game.builder.MazeBuilder.*;
+
+/*
+ * Streams a perfect maze row by row with Eller's algorithm, keeping only
+ * O(width) state. Rows carry walls, M and the optional S and E flags; the
+ * P* path needs the whole maze and is left to the consumer. Set labels of
+ * a row are cell positions, so they always fit the union-find arrays.
+ */
+public final class MazeStream {
+    public interface RowSink {
+        void accept(int y, int[] row);
+    }
+
+    /* -------- Initialization -------- */
+    public static MazeStream with(int width, int height) {
+        return new MazeStream(width, height);
+    }
+
+    /* -------- Stream ---------------- */
+    private final int mWidth, mHeight;
+    private final int[] mRow, mLab, mPar, mFirst, mCnt, mPick;
+    private final boolean[] mDown;
+
+    private int mSx, mSy, mEx, mEy;
+
+    private MazeStream(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Width and height must be at least 1");
+        }
+
+        mWidth = width;
+        mHeight = height;
+
+        mRow = new int[width];
+        mLab = new int[width];
+        mPar = new int[width];
+        mFirst = new int[width];
+        mCnt = new int[width];
+        mPick = new int[width];
+        mDown = new boolean[width];
+
+        mSx = mSy = mEx = mEy = -1;
+    }
+
+    public MazeStream setStart(int x, int y) {
+        mSx = x;
+        mSy = y;
+        return this;
+    }
+
+    public MazeStream setEnd(int x, int y) {
+        mEx = x;
+        mEy = y;
+        return this;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public MazeStream generate(Random r, IntBuffer sink) {
+        int w = mWidth;
+        return generate(r, (y, row) -> sink.put(row, 0, w));
+    }
+
+    public MazeStream generate(Random r, RowSink sink) {
+        if (r == null) {
+            r = new Random();
+        }
+
+        int w = mWidth, h = mHeight;
+        int[] row = mRow, lab = mLab, par = mPar;
+        int[] first = mFirst, cnt = mCnt, pick = mPick;
+        boolean[] down = mDown;
+
+        for (int x = 0; x < w; x++) {
+            lab[x] = x;
+            down[x] = false;
+        }
+
+        for (int y = 0; y < h; y++) {
+            boolean last = y == h - 1;
+            for (int x = 0; x < w; x++) {
+                row[x] = down[x] ? WA & ~WT | M : WA | M;
+                par[x] = x;
+            }
+
+            for (int x = 0; x < w - 1; x++) {
+                int a = find(par, lab[x]), b = find(par, lab[x + 1]);
+                if (a != b && (last || r.nextBoolean())) {
+                    par[a] = b;
+                    row[x] &= ~WR;
+                    row[x + 1] &= ~WL;
+                }
+            }
+
+            if (!last) {
+                for (int x = 0; x < w; x++) {
+                    lab[x] = find(par, lab[x]);
+                    first[x] = -1;
+                    cnt[x] = 0;
+                }
+                for (int x = 0; x < w; x++) {
+                    int l = lab[x];
+                    down[x] = r.nextBoolean();
+                    if (down[x] && first[l] < 0) first[l] = x;
+                    if (r.nextInt(++cnt[l]) == 0) pick[l] = x;
+                }
+                for (int x = 0; x < w; x++) {
+                    int l = lab[x];
+                    if (first[l] < 0) down[first[l] = pick[l]] = true;
+                }
+                for (int x = 0; x < w; x++) {
+                    if (down[x]) {
+                        row[x] &= ~WB;
+                        lab[x] = first[lab[x]];
+                    } else lab[x] = x;
+                }
+            }
+
+            if (y == mSy && isXIn(mSx)) row[mSx] |= S;
+            if (y == mEy && isXIn(mEx)) row[mEx] |= E;
+
+            sink.accept(y, row);
+        }
+
+        return this;
+    }
+
+    private boolean isXIn(int x) {
+        return (x | mWidth - 1 - x) >= 0;
+    }
+
+    private static int find(int[] par, int i) {
+        while (par[i] != i) {
+            i = par[i] = par[par[i]];
+        }
+        return i;
+    }
+}
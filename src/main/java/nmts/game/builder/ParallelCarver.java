@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.builder;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import nmts.game.grid.ArrayMazeGrid;
+
+import static nmts.game.builder.MazeBuilder.*;
+
+/*
+ * Splits the grid into square regions, links the regions to a random
+ * spanning tree (Kruskal) with one passage per tree edge and then carves
+ * every region concurrently, starting at the cell the passage enters it.
+ */
+final class ParallelCarver {
+    static final int REGION_SHIFT = 7;
+
+    private final int[] d;
+    private final int base, stride;
+    private final int w, h, sx, sy;
+    private final int rs, rx, count;
+
+    private final int[] parent, order;
+    private final int[] ex, ey, px, py, pv;
+    private final int[] kids, kc;
+    private final int[] depth, fl, fx, fy;
+    private final long[] seeds;
+
+    ParallelCarver(ArrayMazeGrid grid, int sx, int sy) {
+        this.d = grid.getData();
+        this.base = grid.index(0, 0);
+        this.stride = grid.getStride();
+        this.w = grid.getWidth();
+        this.h = grid.getHeight();
+        this.sx = sx;
+        this.sy = sy;
+
+        rs = 0x1 << REGION_SHIFT;
+        rx = (w + rs - 1) >> REGION_SHIFT;
+        count = rx * ((h + rs - 1) >> REGION_SHIFT);
+
+        parent = new int[count];
+        order = new int[count];
+        ex = new int[count];
+        ey = new int[count];
+        px = new int[count];
+        py = new int[count];
+        pv = new int[count];
+        kids = new int[count * 4];
+        kc = new int[count];
+        depth = new int[count];
+        fl = new int[count];
+        fx = new int[count];
+        fy = new int[count];
+        seeds = new long[count];
+    }
+
+    static boolean worth(int w, int h) {
+        return w > 0x1 << REGION_SHIFT || h > 0x1 << REGION_SHIFT;
+    }
+
+    void create(Random r, int[] n, boolean p, ForkJoinPool pool) {
+        link(r);
+        for (int i = 0; i < count; i++) {
+            seeds[i] = r.nextLong();
+        }
+
+        pool.invoke(new Carve(this, 0, count, false));
+
+        int[] off = new int[count];
+        int e = order[0];
+        for (int k = 1; k < count; k++) {
+            int c = order[k];
+            off[c] = off[parent[c]] + depth[c];
+            if (off[c] + fl[c] >= off[e] + fl[e]) e = c;
+
+            int v = pv[c];
+            d[index(px[c], py[c])] &= ~WD[v];
+            d[index(ex[c], ey[c])] = d[index(ex[c], ey[c])] & ~WD[v + 2 & 0x3] | v;
+        }
+
+        int el = off[e] + fl[e];
+        int lx = fx[e], ly = fy[e];
+
+        d[index(sx, sy)] |= S;
+        if (el > 1) {
+            d[index(lx, ly)] |= E;
+            if (p) {
+                int x = lx, y = ly;
+                while (x != sx || y != sy) {
+                    int v = d[index(x, y)] & LD;
+                    x -= (v - 1) % 2;
+                    y -= (v - 2) % 2;
+                    d[index(x, y)] |= PD[v];
+                }
+            }
+        }
+
+        pool.invoke(new Carve(this, 0, count, true));
+
+        if (el > 1 && n != null) {
+            n[2] = el;
+            n[3] = lx;
+            n[4] = ly;
+        }
+    }
+
+    private int index(int x, int y) {
+        return base + y * stride + x;
+    }
+
+    private int x0(int i) {
+        return (i % rx) << REGION_SHIFT;
+    }
+
+    private int y0(int i) {
+        return (i / rx) << REGION_SHIFT;
+    }
+
+    private int x1(int i) {
+        return Math.min(x0(i) + rs, w);
+    }
+
+    private int y1(int i) {
+        return Math.min(y0(i) + rs, h);
+    }
+
+    private void link(Random r) {
+        // Edge i << 1 joins region i with its right, i << 1 | 1 with its bottom neighbour
+        int[] edges = new int[count * 2];
+        int ec = 0;
+        for (int i = 0; i < count; i++) {
+            if (x1(i) < w) edges[ec++] = i << 1;
+            if (y1(i) < h) edges[ec++] = i << 1 | 1;
+        }
+        for (int i = ec - 1; i > 0; i--) {
+            int j = r.nextInt(i + 1), t = edges[i];
+            edges[i] = edges[j];
+            edges[j] = t;
+        }
+
+        int[] uf = new int[count];
+        int[] hp = new int[count], vp = new int[count];
+        for (int i = 0; i < count; i++) {
+            uf[i] = i;
+            hp[i] = vp[i] = -1;
+        }
+        for (int k = 0; k < ec; k++) {
+            int a = edges[k] >>> 1;
+            boolean vert = (edges[k] & 0x1) != 0;
+            int b = vert ? a + rx : a + 1;
+            int ra = find(uf, a), rb = find(uf, b);
+            if (ra == rb) continue;
+            uf[ra] = rb;
+
+            if (vert) vp[a] = x0(a) + r.nextInt(x1(a) - x0(a));
+            else hp[a] = y0(a) + r.nextInt(y1(a) - y0(a));
+        }
+
+        for (int i = 0; i < count; i++) {
+            parent[i] = -2;
+        }
+        int root = (sy >> REGION_SHIFT) * rx + (sx >> REGION_SHIFT);
+        parent[root] = -1;
+        ex[root] = sx;
+        ey[root] = sy;
+        order[0] = root;
+        for (int head = 0, tail = 1; head < tail; head++) {
+            int i = order[head];
+            if (i % rx > 0 && hp[i - 1] >= 0) tail = adopt(i, i - 1, x0(i), hp[i - 1], 0, tail);
+            if (i >= rx && vp[i - rx] >= 0) tail = adopt(i, i - rx, vp[i - rx], y0(i), 1, tail);
+            if (hp[i] >= 0) tail = adopt(i, i + 1, x1(i) - 1, hp[i], 2, tail);
+            if (vp[i] >= 0) tail = adopt(i, i + rx, vp[i], y1(i) - 1, 3, tail);
+        }
+    }
+
+    private int adopt(int i, int c, int x, int y, int v, int tail) {
+        if (parent[c] != -2) return tail;
+        parent[c] = i;
+        px[c] = x;
+        py[c] = y;
+        pv[c] = v;
+        ex[c] = x + (v - 1) % 2;
+        ey[c] = y + (v - 2) % 2;
+        kids[i * 4 + kc[i]++] = c;
+        order[tail] = c;
+        return tail + 1;
+    }
+
+    private static int find(int[] uf, int i) {
+        while (uf[i] != i) {
+            i = uf[i] = uf[uf[i]];
+        }
+        return i;
+    }
+
+    private void carve(int i) {
+        Random r = new Random(seeds[i]);
+        int[] d = this.d;
+        int stride = this.stride;
+        int x0 = x0(i), y0 = y0(i), x1 = x1(i), y1 = y1(i);
+        int cx = ex[i], cy = ey[i];
+
+        d[index(cx, cy)] |= M;
+
+        int x = cx, y = cy, lx = cx, ly = cy;
+        int l = 1, el = 1;
+
+        for (;;) {
+            int k = index(x, y);
+            int mc = 0;
+            if (x > x0 && (d[k - 1] & M) == 0) mc |= 0x1;
+            if (y > y0 && (d[k - stride] & M) == 0) mc |= 0x2;
+            if (x < x1 - 1 && (d[k + 1] & M) == 0) mc |= 0x4;
+            if (y < y1 - 1 && (d[k + stride] & M) == 0) mc |= 0x8;
+            if (mc == 0) {
+                if (x == cx && y == cy) break;
+                int v = d[k] & LD;
+                x -= (v - 1) % 2;
+                y -= (v - 2) % 2;
+                l--;
+                continue;
+            } else l++;
+
+            int t = 5, v = 0;
+            do {
+                int nv = --t > 1 ? r.nextInt(t) : 1;
+                v = (v + nv) % 4;
+            } while ((mc & 0x1 << v) == 0);
+            int nx = x + (v - 1) % 2, ny = y + (v - 2) % 2;
+            int nk = index(nx, ny);
+
+            d[nk] |= M | v;
+
+            if (l >= el) {
+                el = l;
+                lx = nx;
+                ly = ny;
+            }
+
+            d[k] &= ~WD[v];
+            d[nk] &= ~WD[v + 2 & 0x3];
+
+            x = nx;
+            y = ny;
+        }
+
+        fl[i] = el;
+        fx[i] = lx;
+        fy[i] = ly;
+
+        // Depth of the cells the children are entered from
+        for (int k = 0, kl = kc[i]; k < kl; k++) {
+            int c = kids[i * 4 + k];
+            x = px[c];
+            y = py[c];
+            l = 1;
+            while (x != cx || y != cy) {
+                int v = d[index(x, y)] & LD;
+                x -= (v - 1) % 2;
+                y -= (v - 2) % 2;
+                l++;
+            }
+            depth[c] = l;
+        }
+    }
+
+    private void unlink(int i) {
+        int[] d = this.d;
+        int x0 = x0(i), x1 = x1(i);
+        for (int y = y0(i), y1 = y1(i); y < y1; y++) {
+            for (int k = index(x0, y), kl = k + x1 - x0; k < kl; k++) {
+                d[k] &= ~LD;
+            }
+        }
+    }
+
+    private static final class Carve extends RecursiveAction {
+        private final ParallelCarver pc;
+        private final int lo, hi;
+        private final boolean unlink;
+
+        Carve(ParallelCarver pc, int lo, int hi, boolean unlink) {
+            this.pc = pc;
+            this.lo = lo;
+            this.hi = hi;
+            this.unlink = unlink;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Carve(pc, lo, mid, unlink), new Carve(pc, mid, hi, unlink));
+            } else if (unlink) pc.unlink(lo);
+            else pc.carve(lo);
+        }
+    }
+}
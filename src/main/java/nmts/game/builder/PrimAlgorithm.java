@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.builder;
+
+import java.util.Arrays;
+import java.util.Random;
+import nmts.game.grid.BoundedMazeGrid;
+
+import static nmts.game.builder.MazeBuilder.*;
+
+public final class PrimAlgorithm implements MazeAlgorithm {
+    private final MazeSolver solver = new MazeSolver();
+
+    @Override
+    public void create(BoundedMazeGrid grid, int sx, int sy, Random r, int[] n, boolean p) {
+        int w = grid.getWidth(), h = grid.getHeight();
+        if ((long) w * (long) h > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Grid too large");
+        }
+
+        int[] fs = new int[16];
+        long[] in = new long[(w * h + 63) >>> 6];
+        int fl = 0;
+
+        grid.add(sx, sy, M | S);
+        int x = sx, y = sy;
+        for (;;) {
+            for (int v = 0; v < 4; v++) {
+                int nx = x + (v - 1) % 2, ny = y + (v - 2) % 2;
+                if ((nx | ny | w - 1 - nx | h - 1 - ny) < 0) continue;
+                int c = ny * w + nx;
+                if ((in[c >>> 6] & 0x1L << c) != 0 || (grid.get(nx, ny) & M) != 0) continue;
+                in[c >>> 6] |= 0x1L << c;
+                if (fl == fs.length) fs = Arrays.copyOf(fs, fl * 2);
+                fs[fl++] = c;
+            }
+            if (fl == 0) break;
+
+            int j = r.nextInt(fl), c = fs[j];
+            fs[j] = fs[--fl];
+            x = c % w;
+            y = c / w;
+
+            int mc = 0, mn = 0;
+            if (x > 0 && (grid.get(x - 1, y) & M) != 0) { mc |= 0x1; mn++; }
+            if (y > 0 && (grid.get(x, y - 1) & M) != 0) { mc |= 0x2; mn++; }
+            if (x < w - 1 && (grid.get(x + 1, y) & M) != 0) { mc |= 0x4; mn++; }
+            if (y < h - 1 && (grid.get(x, y + 1) & M) != 0) { mc |= 0x8; mn++; }
+
+            int v = 0;
+            for (int k = r.nextInt(mn); (mc & 0x1 << v) == 0 || k-- > 0; ) {
+                v++;
+            }
+            open(grid, x, y, v);
+        }
+
+        solver.solve(grid, sx, sy, n, p);
+    }
+}
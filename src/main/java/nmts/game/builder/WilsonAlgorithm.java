@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.builder;
+
+import java.util.Random;
+import nmts.game.grid.BoundedMazeGrid;
+
+import static nmts.game.builder.MazeBuilder.*;
+
+/*
+ * Loop-erased random walks: every walk remembers only the last direction
+ * it left each cell in, so retracing it from the first cell skips loops.
+ */
+public final class WilsonAlgorithm implements MazeAlgorithm {
+    private final MazeSolver solver = new MazeSolver();
+
+    @Override
+    public void create(BoundedMazeGrid grid, int sx, int sy, Random r, int[] n, boolean p) {
+        int w = grid.getWidth(), h = grid.getHeight();
+        if ((long) w * (long) h > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Grid too large");
+        }
+
+        byte[] dirs = new byte[w * h];
+        grid.add(sx, sy, M | S);
+
+        for (int y0 = 0; y0 < h; y0++) {
+            for (int x0 = 0; x0 < w; x0++) {
+                if ((grid.get(x0, y0) & M) != 0) continue;
+
+                int x = x0, y = y0;
+                while ((grid.get(x, y) & M) == 0) {
+                    int v, nx, ny;
+                    do {
+                        v = r.nextInt(4);
+                        nx = x + (v - 1) % 2;
+                        ny = y + (v - 2) % 2;
+                    } while ((nx | ny | w - 1 - nx | h - 1 - ny) < 0);
+                    dirs[y * w + x] = (byte) v;
+                    x = nx;
+                    y = ny;
+                }
+
+                x = x0;
+                y = y0;
+                for (;;) {
+                    int v = dirs[y * w + x];
+                    int nx = x + (v - 1) % 2, ny = y + (v - 2) % 2;
+                    boolean in = (grid.get(nx, ny) & M) != 0;
+                    open(grid, x, y, v);
+                    if (in) break;
+                    x = nx;
+                    y = ny;
+                }
+            }
+        }
+
+        solver.solve(grid, sx, sy, n, p);
+    }
+}
@@ -24,33 +24,59 @@ import java.awt.event.WindowEvent;
 import java.io.Closeable;
 import javax.swing.*;
 import nmts.game.Config;
+import org.gvoid.engine.CanvasGamePanel;
 import org.gvoid.engine.Game;
 import org.gvoid.engine.GamePanel;
+import org.gvoid.engine.interfaces.GameView;
 
 public class GameFrame extends JFrame implements Closeable, MouseListener {
     public GridBagLayout layout = new GridBagLayout();
 
-    public GamePanel screen = new GamePanel() {
-        @Override
-        protected void onUpdate() {
-            GameFrame.this.onUpdate();
-        }
-    };
+    public final Component screen;
+    private final GameView view;
 
     public GameFrame() {
-        this(null);
+        this(null, false);
     }
 
     public GameFrame(Game game) {
+        this(game, false);
+    }
+
+    public GameFrame(boolean canvas) {
+        this(null, canvas);
+    }
+
+    /* canvas selects CanvasGamePanel, which renders on its own thread instead of the EDT */
+    public GameFrame(Game game, boolean canvas) {
         super();
 
+        if (canvas) {
+            CanvasGamePanel panel = new CanvasGamePanel() {
+                @Override
+                protected void onUpdate() {
+                    GameFrame.this.onUpdate();
+                }
+            };
+            screen = panel;
+            view = panel;
+        } else {
+            GamePanel panel = new GamePanel() {
+                @Override
+                protected void onUpdate() {
+                    GameFrame.this.onUpdate();
+                }
+            };
+            screen = panel;
+            view = panel;
+        }
+
         setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
 
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
-                if (screen != null)
-                    screen.setGame(null);
+                view.setGame(null);
             }
         });
 
@@ -73,12 +99,13 @@ public class GameFrame extends JFrame implements Closeable, MouseListener {
         screen.setBounds(0, 0, 1047, 508);
         screen.setBackground(Color.WHITE);
 
-        screen.setCps(Config.CPS);
-        screen.setAntialias(Config.ANTIALIASING);
+        view.setFps(Config.FPS);
+        view.setCps(Config.CPS);
+        view.setAntialias(Config.ANTIALIASING);
 
         screen.addMouseListener(this);
 
-        screen.setGame(game);
+        view.setGame(game);
 
         // Add components
         GridBagConstraints gbc = new GridBagConstraints();
@@ -99,20 +126,17 @@ public class GameFrame extends JFrame implements Closeable, MouseListener {
     }
 
     public void setGame(Game game) {
-        if (screen != null) {
-            screen.setGame(game);
-        }
+        view.setGame(game);
     }
 
     public void setAntialias(boolean antialias) {
-        screen.setAntialias(antialias);
+        view.setAntialias(antialias);
     }
 
     @Override
     public void close() {
         try {
-            if (screen != null)
-                screen.setGame(null);
+            view.setGame(null);
         } catch (Exception ignored) {
         }
 
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.grid;
+
+import java.util.Arrays;
+
+public class ArrayMazeGrid implements BoundedMazeGrid {
+    private final int[] data;
+    private final int width, height;
+    private final int pad, stride;
+
+    public ArrayMazeGrid(int width, int height) {
+        this(width, height, 0, 0);
+    }
+
+    public ArrayMazeGrid(int width, int height, int pad, int padValue) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Width and height must be at least 1");
+        }
+        if (pad < 0) {
+            throw new IllegalArgumentException("Padding must not be negative");
+        }
+
+        long size = (long) (width + pad * 2) * (long) (height + pad * 2);
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Grid too large");
+        }
+
+        this.data = new int[(int) size];
+        this.width = width;
+        this.height = height;
+        this.pad = pad;
+        this.stride = width + pad * 2;
+
+        if (pad > 0 && padValue != 0) {
+            Arrays.fill(data, padValue);
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    public int getPadding() {
+        return pad;
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+    public int[] getData() {
+        return data;
+    }
+
+    public int index(int x, int y) {
+        return (y + pad) * stride + x + pad;
+    }
+
+    @Override
+    public int get(int x, int y) {
+        return data[(y + pad) * stride + x + pad];
+    }
+
+    @Override
+    public void set(int x, int y, int t) {
+        data[(y + pad) * stride + x + pad] = t;
+    }
+
+    @Override
+    public void add(int x, int y, int f) {
+        data[(y + pad) * stride + x + pad] |= f;
+    }
+
+    @Override
+    public void remove(int x, int y, int f) {
+        data[(y + pad) * stride + x + pad] &= ~f;
+    }
+
+    @Override
+    public void fill(int t) {
+        for (int y = 0, i = index(0, 0); y < height; y++, i += stride) {
+            Arrays.fill(data, i, i + width, t);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.grid;
+
+/*
+ * A grid of a fixed, finite size whose cells can all be visited. Builders
+ * and algorithms fill and carve whole grids, so they only take these.
+ */
+public interface BoundedMazeGrid extends MazeGrid {
+    default void fill(int t) {
+        int w = getWidth(), h = getHeight();
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                set(x, y, t);
+            }
+        }
+    }
+
+    default int[][] toArray() {
+        int w = getWidth(), h = getHeight();
+        int[][] a = new int[h][w];
+        for (int y = 0; y < h; y++) {
+            int[] row = a[y];
+            for (int x = 0; x < w; x++) {
+                row[x] = get(x, y);
+            }
+        }
+        return a;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.grid;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import nmts.game.builder.MazeBuilder;
+
+import static nmts.game.builder.MazeBuilder.M;
+import static nmts.game.builder.MazeBuilder.WA;
+import static nmts.game.builder.MazeBuilder.WB;
+import static nmts.game.builder.MazeBuilder.WL;
+import static nmts.game.builder.MazeBuilder.WR;
+import static nmts.game.builder.MazeBuilder.WT;
+
+/*
+ * An endless maze made of square chunks that are generated on first access
+ * from a seed derived from the world seed and the chunk position. Every
+ * chunk except the first opens exactly one passage to its left or top
+ * neighbour, so the chunks form a tree rooted at (0, 0) and the whole world
+ * stays a perfect maze. Chunks are kept in an LRU cache, changes made with
+ * set() are lost once a chunk is evicted.
+ */
+public class ChunkedMazeGrid implements MazeGrid {
+    public static final int MIN_CAPACITY = 16;
+    public static final int MAX_CAPACITY = 1024;
+
+    private final long seed;
+    private final int shift, size, mask;
+
+    private final LinkedHashMap<Long, int[]> chunks;
+    private int capacity;
+
+    private final MazeBuilder builder;
+    private final int[] scratch;
+
+    private long lastKey;
+    private int[] last;
+
+    public ChunkedMazeGrid(long seed, int chunkShift) {
+        if (chunkShift < 1 || chunkShift > 12) {
+            throw new IllegalArgumentException("Chunk shift must be between 1 and 12");
+        }
+
+        this.seed = seed;
+        this.shift = chunkShift;
+        this.size = 0x1 << chunkShift;
+        this.mask = size - 1;
+
+        this.capacity = MIN_CAPACITY;
+        this.chunks = new LinkedHashMap<>(MIN_CAPACITY * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+                return size() > capacity;
+            }
+        };
+
+        ArrayMazeGrid grid = new ArrayMazeGrid(size, size);
+        this.builder = MazeBuilder.with(grid);
+        this.scratch = grid.getData();
+
+        this.lastKey = Long.MIN_VALUE;
+        this.last = null;
+    }
+
+    @Override
+    public int getWidth() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int getHeight() {
+        return Integer.MAX_VALUE;
+    }
+
+    public int getChunkSize() {
+        return size;
+    }
+
+    public int getLoaded() {
+        return chunks.size();
+    }
+
+    @Override
+    public int get(int x, int y) {
+        return chunk(x >> shift, y >> shift)[(y & mask) << shift | x & mask];
+    }
+
+    @Override
+    public void set(int x, int y, int t) {
+        chunk(x >> shift, y >> shift)[(y & mask) << shift | x & mask] = t;
+    }
+
+    public void retain(float x, float y, float range) {
+        float r = Math.min(range, (float) Integer.MAX_VALUE) + size;
+        int cx0 = Math.max((int) Math.floor(x - r) >> shift, 0);
+        int cy0 = Math.max((int) Math.floor(y - r) >> shift, 0);
+        int cx1 = (int) Math.floor(x + r) >> shift;
+        int cy1 = (int) Math.floor(y + r) >> shift;
+
+        long wanted = (long) (cx1 - cx0 + 1) * (long) (cy1 - cy0 + 1);
+        capacity = (int) Math.max(Math.min(wanted * 2L, MAX_CAPACITY), MIN_CAPACITY);
+
+        Iterator<Long> it = chunks.keySet().iterator();
+        while (it.hasNext()) {
+            long key = it.next();
+            int cx = (int) (key >> 32), cy = (int) key;
+            if (cx < cx0 || cx > cx1 || cy < cy0 || cy > cy1) {
+                it.remove();
+                if (key == lastKey) {
+                    lastKey = Long.MIN_VALUE;
+                    last = null;
+                }
+            }
+        }
+        while (chunks.size() > capacity) {
+            it = chunks.keySet().iterator();
+            it.next();
+            it.remove();
+        }
+    }
+
+    private int[] chunk(int cx, int cy) {
+        long key = (long) cx << 32 | (long) cy & 0xFFFFFFFFL;
+        if (key == lastKey) return last;
+
+        int[] c = chunks.get(key);
+        if (c == null) {
+            c = generate(cx, cy);
+            chunks.put(key, c);
+        }
+        lastKey = key;
+        last = c;
+        return c;
+    }
+
+    private int[] generate(int cx, int cy) {
+        Random r = new Random(hash(cx, cy, 0));
+        builder.fill()
+                .setStart(r.nextInt(size), r.nextInt(size))
+                .create(r, null, false);
+
+        int[] c = new int[size * size];
+        for (int i = 0; i < c.length; i++) {
+            c[i] = scratch[i] & (WA | M);
+        }
+
+        if (hasParent(cx, cy)) {
+            int o = offset(cx, cy);
+            if (parentLeft(cx, cy)) c[o << shift] &= ~WL;
+            else c[o] &= ~WT;
+        }
+        if (parentLeft(cx + 1, cy)) {
+            c[offset(cx + 1, cy) << shift | mask] &= ~WR;
+        }
+        if (!parentLeft(cx, cy + 1)) {
+            c[mask << shift | offset(cx, cy + 1)] &= ~WB;
+        }
+        return c;
+    }
+
+    private boolean hasParent(int cx, int cy) {
+        return cx > 0 || cy > 0;
+    }
+
+    private boolean parentLeft(int cx, int cy) {
+        if (cx <= 0) return false;
+        if (cy <= 0) return true;
+        return (hash(cx, cy, 1) & 0x1L) == 0L;
+    }
+
+    private int offset(int cx, int cy) {
+        return (int) (hash(cx, cy, 2) >>> 33) & mask;
+    }
+
+    private long hash(int cx, int cy, int salt) {
+        long h = seed
+                ^ (long) cx * 0x9E3779B97F4A7C15L
+                ^ (long) cy * 0xC2B2AE3D27D4EB4FL
+                ^ (long) salt * 0x165667B19E3779F9L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
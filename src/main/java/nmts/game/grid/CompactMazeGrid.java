@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.grid;
+
+import java.util.Arrays;
+
+import static nmts.game.builder.MazeBuilder.E;
+import static nmts.game.builder.MazeBuilder.M;
+import static nmts.game.builder.MazeBuilder.PA;
+import static nmts.game.builder.MazeBuilder.PB;
+import static nmts.game.builder.MazeBuilder.PL;
+import static nmts.game.builder.MazeBuilder.PR;
+import static nmts.game.builder.MazeBuilder.PT;
+import static nmts.game.builder.MazeBuilder.S;
+import static nmts.game.builder.MazeBuilder.WA;
+import static nmts.game.builder.MazeBuilder.WB;
+import static nmts.game.builder.MazeBuilder.WL;
+import static nmts.game.builder.MazeBuilder.WR;
+import static nmts.game.builder.MazeBuilder.WT;
+
+/*
+ * Stores every cell in 4 bits. Only the right and bottom wall are kept per
+ * cell, the left and top wall are read from the neighbouring cell and the
+ * outer left and top border is always closed. The remaining bits hold the
+ * path direction, a path can never lead through a wall, so all valid
+ * combinations fit into 16 codes.
+ *
+ * Start and end are kept as coordinates and M is reported for every cell
+ * that is connected to the maze, either through an open wall or by being
+ * the start cell.
+ */
+public class CompactMazeGrid implements BoundedMazeGrid {
+    private static final int STORED = WR | WB | PA;
+
+    private static final int[] DEC = {
+            0, WR, WB, WR | WB,
+            PL, PL | WR, PL | WB, PL | WR | WB,
+            PT, PT | WR, PT | WB, PT | WR | WB,
+            PR, PR | WB,
+            PB, PB | WR
+    };
+
+    private final long[] data;
+    private final int width, height;
+
+    private int sx, sy, ex, ey;
+
+    public CompactMazeGrid(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Width and height must be at least 1");
+        }
+
+        long words = (((long) width * (long) height - 1L) >> 4) + 1L;
+        if (words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Grid too large");
+        }
+
+        this.data = new long[(int) words];
+        this.width = width;
+        this.height = height;
+
+        sx = sy = ex = ey = -1;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    public long getBytes() {
+        return (long) data.length * 8L;
+    }
+
+    @Override
+    public int get(int x, int y) {
+        long i = (long) y * width + x;
+        int t = DEC[code(i)];
+        t |= x == 0 ? WL : (DEC[code(i - 1L)] & WR) >>> 2;
+        t |= y == 0 ? WT : (DEC[code(i - width)] & WB) >>> 2;
+        t |= (-((t & WA) ^ WA) >>> 31) * M;
+        if (x == sx && y == sy) t |= S | M;
+        if (x == ex && y == ey) t |= E;
+        return t;
+    }
+
+    @Override
+    public void set(int x, int y, int t) {
+        update(x, y, t, ~t);
+    }
+
+    @Override
+    public void add(int x, int y, int f) {
+        update(x, y, f, 0);
+    }
+
+    @Override
+    public void remove(int x, int y, int f) {
+        update(x, y, 0, f);
+    }
+
+    @Override
+    public void fill(int t) {
+        long c = encode(t & STORED), w = 0L;
+        for (int i = 0; i < 16; i++) {
+            w |= c << (i << 2);
+        }
+        Arrays.fill(data, w);
+
+        if ((t & S) != 0) sx = sy = 0;
+        else sx = sy = -1;
+        if ((t & E) != 0) ex = ey = 0;
+        else ex = ey = -1;
+    }
+
+    private void update(int x, int y, int s, int c) {
+        if (((s | c) & STORED) != 0) {
+            int t = DEC[code(x, y)];
+            store(x, y, encode((t | s) & ~c & STORED));
+        }
+        if ((s & WL) != 0 && x > 0) {
+            int t = DEC[code(x - 1, y)];
+            store(x - 1, y, encode((t | WR) & STORED));
+        } else if ((c & WL) != 0 && x > 0) {
+            int t = DEC[code(x - 1, y)];
+            store(x - 1, y, encode(t & ~WR & STORED));
+        }
+        if ((s & WT) != 0 && y > 0) {
+            int t = DEC[code(x, y - 1)];
+            store(x, y - 1, encode((t | WB) & STORED));
+        } else if ((c & WT) != 0 && y > 0) {
+            int t = DEC[code(x, y - 1)];
+            store(x, y - 1, encode(t & ~WB & STORED));
+        }
+        if ((s & S) != 0) {
+            sx = x;
+            sy = y;
+        } else if ((c & S) != 0 && x == sx && y == sy) {
+            sx = sy = -1;
+        }
+        if ((s & E) != 0) {
+            ex = x;
+            ey = y;
+        } else if ((c & E) != 0 && x == ex && y == ey) {
+            ex = ey = -1;
+        }
+    }
+
+    private int code(int x, int y) {
+        return code((long) y * width + x);
+    }
+
+    private int code(long i) {
+        return (int) (data[(int) (i >> 4)] >>> ((i & 0xF) << 2)) & 0xF;
+    }
+
+    private void store(int x, int y, int code) {
+        long i = (long) y * width + x;
+        int wi = (int) (i >> 4), sh = (int) (i & 0xF) << 2;
+        data[wi] = data[wi] & ~(0xFL << sh) | (long) code << sh;
+    }
+
+    public static int encode(int t) {
+        int w = ((t & WR) != 0 ? 0x1 : 0) | ((t & WB) != 0 ? 0x2 : 0);
+        if ((t & PL) != 0) return 4 + w;
+        if ((t & PT) != 0) return 8 + w;
+        if ((t & PR) != 0) {
+            if ((w & 0x1) != 0) throw new IllegalArgumentException("Path leads through wall");
+            return 12 + (w >> 1);
+        }
+        if ((t & PB) != 0) {
+            if ((w & 0x2) != 0) throw new IllegalArgumentException("Path leads through wall");
+            return 14 + w;
+        }
+        return w;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.grid;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static nmts.game.builder.MazeBuilder.WA;
+
+/*
+ * Keeps the cells in a memory-mapped file. The file is mapped in segments
+ * on first access, so only the pages around the cells that are actually
+ * read or written are loaded. Cells are stored xor WA, which lets a fresh
+ * sparse file read as a fully walled maze without writing it first.
+ */
+public class MappedMazeGrid implements BoundedMazeGrid, Closeable {
+    private static final int MAGIC = 0x4E4D5453;
+    private static final int VERSION = 1;
+    private static final int HEADER = 16;
+
+    private static final int SEGMENT_SHIFT = 26;
+    private static final int SEGMENT_MASK = (0x1 << SEGMENT_SHIFT) - 1;
+
+    public static MappedMazeGrid create(Path file, int width, int height) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Width and height must be at least 1");
+        }
+
+        FileChannel channel = FileChannel.open(file,
+                                               StandardOpenOption.CREATE,
+                                               StandardOpenOption.TRUNCATE_EXISTING,
+                                               StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).flip();
+            channel.write(header, 0L);
+
+            // Sized once and never truncated, mapped segments stay valid for the grid's lifetime
+            MappedMazeGrid grid = new MappedMazeGrid(channel, width, height);
+            channel.write(ByteBuffer.allocate(1), grid.size() - 1L);
+            return grid;
+        } catch (Throwable tr) {
+            channel.close();
+            throw tr;
+        }
+    }
+
+    public static MappedMazeGrid open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                                               StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            if (channel.read(header, 0L) != HEADER) {
+                throw new IOException("Invalid maze file");
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Invalid maze file");
+            }
+            int width = header.getInt();
+            int height = header.getInt();
+            if (width <= 0 || height <= 0) {
+                throw new IOException("Invalid maze file");
+            }
+
+            MappedMazeGrid grid = new MappedMazeGrid(channel, width, height);
+            if (channel.size() < grid.size()) {
+                throw new IOException("Maze file is truncated");
+            }
+            Arrays.fill(grid.dirty, true);
+            return grid;
+        } catch (Throwable tr) {
+            channel.close();
+            throw tr;
+        }
+    }
+
+    private final FileChannel channel;
+    private final int width, height;
+    private final long cells;
+
+    private final MappedByteBuffer[] maps;
+    private final IntBuffer[] segments;
+    private final boolean[] dirty;
+
+    private MappedMazeGrid(FileChannel channel, int width, int height) {
+        this.channel = channel;
+        this.width = width;
+        this.height = height;
+        this.cells = (long) width * (long) height;
+
+        int sc = (int) (((cells - 1L) >> SEGMENT_SHIFT) + 1L);
+        this.maps = new MappedByteBuffer[sc];
+        this.segments = new IntBuffer[sc];
+        this.dirty = new boolean[sc];
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    public long size() {
+        return HEADER + cells * 4L;
+    }
+
+    @Override
+    public int get(int x, int y) {
+        long i = (long) y * width + x;
+        return segment((int) (i >>> SEGMENT_SHIFT)).get((int) i & SEGMENT_MASK) ^ WA;
+    }
+
+    @Override
+    public void set(int x, int y, int t) {
+        long i = (long) y * width + x;
+        int si = (int) (i >>> SEGMENT_SHIFT);
+        dirty[si] = true;
+        segment(si).put((int) i & SEGMENT_MASK, t ^ WA);
+    }
+
+    @Override
+    public void fill(int t) {
+        if (t == WA) {
+            clear();
+            return;
+        }
+
+        int v = t ^ WA;
+        for (int si = 0; si < segments.length; si++) {
+            dirty[si] = true;
+            IntBuffer s = segment(si);
+            for (int i = 0, l = s.limit(); i < l; i++) {
+                s.put(i, v);
+            }
+        }
+    }
+
+    public void flush() {
+        for (MappedByteBuffer map : maps) {
+            if (map != null) map.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (int si = 0; si < segments.length; si++) {
+            maps[si] = null;
+            segments[si] = null;
+        }
+        channel.close();
+    }
+
+    /* Zeroes only the segments written since the last clear, the rest still reads as walls */
+    private void clear() {
+        int[] zero = null;
+        for (int si = 0; si < segments.length; si++) {
+            if (!dirty[si]) continue;
+            if (zero == null) zero = new int[4096];
+
+            IntBuffer s = segment(si);
+            for (int i = 0, l = s.limit(); i < l; i += zero.length) {
+                s.put(i, zero, 0, Math.min(zero.length, l - i));
+            }
+            dirty[si] = false;
+        }
+    }
+
+    private IntBuffer segment(int si) {
+        IntBuffer s = segments[si];
+        if (s == null) s = map(si);
+        return s;
+    }
+
+    private IntBuffer map(int si) {
+        long start = (long) si << SEGMENT_SHIFT;
+        long len = Math.min(cells - start, 0x1L << SEGMENT_SHIFT);
+        try {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, HEADER + start * 4L, len * 4L);
+            IntBuffer s = map.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            maps[si] = map;
+            segments[si] = s;
+            return s;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to map maze segment " + si, e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package nmts.game.grid;
+
+public interface MazeGrid {
+    int getWidth();
+
+    int getHeight();
+
+    int get(int x, int y);
+
+    void set(int x, int y, int t);
+
+    default void add(int x, int y, int f) {
+        set(x, y, get(x, y) | f);
+    }
+
+    default void remove(int x, int y, int f) {
+        set(x, y, get(x, y) & ~f);
+    }
+
+    default boolean isIn(int x, int y) {
+        return (x | y | getWidth() - 1 - x | getHeight() - 1 - y) >= 0;
+    }
+}
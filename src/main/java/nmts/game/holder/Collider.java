@@ -0,0 +1,29 @@
+package nmts.game.holder;
+
+import nmts.game.grid.MazeGrid;
+
+/*
+ * Sweeps circles against the walls of a maze grid. castSphere writes the
+ * center at contact to t[0..1], the distance to t[2] and the contact point
+ * to t[3..4]. exc only lets an implementation remember walls the cast moves
+ * away from, hits are the same without it and GridCollider ignores it.
+ * Implementations may limit the radius, GridCollider throws
+ * IllegalArgumentException for circles of a cell or more.
+ */
+public interface Collider {
+    void build(MazeGrid grid);
+
+    void cover(MazeGrid grid, int x, int y, int rad);
+
+    boolean castSphere(double[] t, double px, double py, double dx, double dy, double d, double r, boolean clamp, boolean exc);
+
+    boolean castSphere(float[] t, float px, float py, float dx, float dy, float d, float r, boolean clamp, boolean exc);
+
+    default boolean castSphere(double[] t, double px, double py, double dx, double dy, double d, double r) {
+        return castSphere(t, px, py, dx, dy, d, r, true, false);
+    }
+
+    default boolean castSphere(float[] t, float px, float py, float dx, float dy, float d, float r) {
+        return castSphere(t, px, py, dx, dy, d, r, true, false);
+    }
+}
@@ -0,0 +1,194 @@
+package nmts.game.holder;
+
+import nmts.game.grid.MazeGrid;
+import org.gvoid.engine.math.CMath;
+
+import static nmts.game.builder.MazeBuilder.WB;
+import static nmts.game.builder.MazeBuilder.WL;
+import static nmts.game.builder.MazeBuilder.WR;
+import static nmts.game.builder.MazeBuilder.WT;
+
+/*
+ * Collides straight against the wall bits of the grid, no segments are
+ * kept. The motion is walked cell by cell (DDA) and every cell sweeps its
+ * own walls plus the walls of its neighbours that end in its corners. A
+ * circle smaller than a cell with its center in a cell can only touch
+ * those, so the walk stops at the first cell that is left after the
+ * earliest contact, or once the center left the grid.
+ */
+public class GridCollider implements Collider {
+    private MazeGrid mg;
+    private final double[] st = new double[5];
+
+    // State of the running cast, relative to the start cell
+    private double px, py, dx, dy, r;
+    private boolean clamp;
+    private double hd, hx, hy;
+    private boolean hit;
+    private int bx0, by0, bx1, by1;
+
+    @Override
+    public void build(MazeGrid grid) {
+        mg = grid;
+    }
+
+    @Override
+    public void cover(MazeGrid grid, int x, int y, int rad) {
+        mg = grid;
+    }
+
+    @Override
+    public boolean castSphere(float[] t, float px, float py, float dx, float dy, float d, float r, boolean clamp, boolean exc) {
+        double[] st = this.st;
+        if (!castSphere(st, px, py, dx, dy, d, r, clamp, exc)) return false;
+        for (int i = 0; i < 5; i++) {
+            t[i] = (float) st[i];
+        }
+        return true;
+    }
+
+    @Override
+    public boolean castSphere(double[] t, double px, double py, double dx, double dy, double d, double r, boolean clamp, boolean exc) {
+        MazeGrid g = mg;
+        if (g == null) return false;
+        if (r >= 1d) {
+            throw new IllegalArgumentException("Radius must be smaller than a cell");
+        }
+
+        double dl = dx * dx + dy * dy;
+        if (dl == 0d) return false;
+        else if (dl != 1d) {
+            dl = Math.pow(dl, 0.5d);
+            dx /= dl;
+            dy /= dl;
+        }
+
+        // Sweep in coordinates relative to the start cell to keep precision far out
+        int ox = (int) Math.floor(px), oy = (int) Math.floor(py);
+        double lx = px - ox, ly = py - oy;
+        double rr = r + CMath.PRECISION;
+
+        int sx = dx > 0d ? 1 : -1, sy = dy > 0d ? 1 : -1;
+        double tdx = dx != 0d ? 1d / Math.abs(dx) : Double.MAX_VALUE;
+        double tdy = dy != 0d ? 1d / Math.abs(dy) : Double.MAX_VALUE;
+        double tmx = dx != 0d ? (dx > 0d ? 1d - lx : lx) * tdx : Double.MAX_VALUE;
+        double tmy = dy != 0d ? (dy > 0d ? 1d - ly : ly) * tdy : Double.MAX_VALUE;
+
+        this.px = lx;
+        this.py = ly;
+        this.dx = dx;
+        this.dy = dy;
+        this.r = rr;
+        this.clamp = clamp;
+        hd = d;
+        hit = false;
+        double qx = lx + dx * d, qy = ly + dy * d;
+        bx0 = (int) Math.max(Math.floor(Math.min(lx, qx) - rr), Integer.MIN_VALUE / 2);
+        by0 = (int) Math.max(Math.floor(Math.min(ly, qy) - rr), Integer.MIN_VALUE / 2);
+        bx1 = (int) Math.min(Math.ceil(Math.max(lx, qx) + rr), Integer.MAX_VALUE / 2);
+        by1 = (int) Math.min(Math.ceil(Math.max(ly, qy) + rr), Integer.MAX_VALUE / 2);
+        double te = exit(g, px, py, dx, dy);
+        int cx = 0, cy = 0;
+        for (;;) {
+            sweepCell(t, g, ox + cx, oy + cy, cx, cy);
+
+            double tn = Math.min(tmx, tmy);
+            if (tn >= hd || tn >= te) break;
+            if (tmx < tmy) {
+                cx += sx;
+                tmx += tdx;
+            } else {
+                cy += sy;
+                tmy += tdy;
+            }
+        }
+
+        if (!hit) return false;
+        t[0] = px + dx * hd;
+        t[1] = py + dy * hd;
+        t[2] = hd;
+        t[3] = hx + ox;
+        t[4] = hy + oy;
+        return true;
+    }
+
+    private static double exit(MazeGrid g, double px, double py, double dx, double dy) {
+        double ex = dx > 0d ? (g.getWidth() + 1d - px) / dx : dx < 0d ? (-1d - px) / dx : Double.MAX_VALUE;
+        double ey = dy > 0d ? (g.getHeight() + 1d - py) / dy : dy < 0d ? (-1d - py) / dy : Double.MAX_VALUE;
+        return Math.min(ex, ey);
+    }
+
+    private void sweepCell(double[] t, MazeGrid g, int x, int y, int cx, int cy) {
+        // Bits of the 3x3 block around the cell, row by row
+        int c0 = cell(g, x - 1, y - 1), c1 = cell(g, x, y - 1), c2 = cell(g, x + 1, y - 1);
+        int c3 = cell(g, x - 1, y), c4 = cell(g, x, y), c5 = cell(g, x + 1, y);
+        int c6 = cell(g, x - 1, y + 1), c7 = cell(g, x, y + 1), c8 = cell(g, x + 1, y + 1);
+
+        boolean top = ((c4 & WT) | (c1 & WB)) != 0, bottom = ((c4 & WB) | (c7 & WT)) != 0;
+        boolean left = ((c4 & WL) | (c3 & WR)) != 0, right = ((c4 & WR) | (c5 & WL)) != 0;
+        if (top) hSweep(t, g, x, y, cx, cy);
+        if (bottom) hSweep(t, g, x, y + 1, cx, cy + 1);
+        if (left) vSweep(t, g, x, y, cx, cy);
+        if (right) vSweep(t, g, x + 1, y, cx + 1, cy);
+
+        // Walls of the neighbouring cells that end in a corner of this one
+        if (!top) {
+            if (((c3 & WT) | (c0 & WB)) != 0) hSweep(t, g, x - 1, y, cx - 1, cy);
+            if (((c5 & WT) | (c2 & WB)) != 0) hSweep(t, g, x + 1, y, cx + 1, cy);
+        }
+        if (!bottom) {
+            if (((c3 & WB) | (c6 & WT)) != 0) hSweep(t, g, x - 1, y + 1, cx - 1, cy + 1);
+            if (((c5 & WB) | (c8 & WT)) != 0) hSweep(t, g, x + 1, y + 1, cx + 1, cy + 1);
+        }
+        if (!left) {
+            if (((c1 & WL) | (c0 & WR)) != 0) vSweep(t, g, x, y - 1, cx, cy - 1);
+            if (((c7 & WL) | (c6 & WR)) != 0) vSweep(t, g, x, y + 1, cx, cy + 1);
+        }
+        if (!right) {
+            if (((c1 & WR) | (c2 & WL)) != 0) vSweep(t, g, x + 1, y - 1, cx + 1, cy - 1);
+            if (((c7 & WR) | (c8 & WL)) != 0) vSweep(t, g, x + 1, y + 1, cx + 1, cy + 1);
+        }
+    }
+
+    /*
+     * Walls are swept as their whole straight run, seams inside a run must
+     * not act as corners. Runs are only followed to the bounds of the swept
+     * circle, ends outside of it can not be reached.
+     */
+    private void hSweep(double[] t, MazeGrid g, int x, int y, int cx, int cy) {
+        int a = 0, b = 0;
+        while (cx - a > bx0 && hWall(g, x - a - 1, y)) a++;
+        while (cx + 1 + b < bx1 && hWall(g, x + b + 1, y)) b++;
+        sweep(t, cx - a, cy, cx + 1 + b, cy);
+    }
+
+    private void vSweep(double[] t, MazeGrid g, int x, int y, int cx, int cy) {
+        int a = 0, b = 0;
+        while (cy - a > by0 && vWall(g, x, y - a - 1)) a++;
+        while (cy + 1 + b < by1 && vWall(g, x, y + b + 1)) b++;
+        sweep(t, cx, cy - a, cx, cy + 1 + b);
+    }
+
+    private void sweep(double[] t, double ax, double ay, double bx, double by) {
+        double ts = CMath.sweep(t, ax, ay, bx, by, px, py, dx, dy, r, clamp);
+        if (ts < 0d || ts > hd) return;
+        hd = ts;
+        hx = t[3];
+        hy = t[4];
+        hit = true;
+    }
+
+    private static int cell(MazeGrid g, int x, int y) {
+        return g.isIn(x, y) ? g.get(x, y) : 0;
+    }
+
+    private static boolean hWall(MazeGrid g, int x, int y) {
+        return g.isIn(x, y) && (g.get(x, y) & WT) != 0
+                || g.isIn(x, y - 1) && (g.get(x, y - 1) & WB) != 0;
+    }
+
+    private static boolean vWall(MazeGrid g, int x, int y) {
+        return g.isIn(x, y) && (g.get(x, y) & WL) != 0
+                || g.isIn(x - 1, y) && (g.get(x - 1, y) & WR) != 0;
+    }
+}
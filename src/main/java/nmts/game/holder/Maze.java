@@ -1,22 +1,44 @@
 package nmts.game.holder;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import nmts.game.builder.MazeBuilder;
+import nmts.game.grid.ArrayMazeGrid;
+import nmts.game.grid.BoundedMazeGrid;
+import nmts.game.grid.ChunkedMazeGrid;
+import nmts.game.grid.CompactMazeGrid;
+import nmts.game.grid.MappedMazeGrid;
+import nmts.game.grid.MazeGrid;
 
 import static nmts.game.builder.MazeBuilder.*;
 
 public class Maze {
     public int MAZE_WIDTH = 4;
     public int MAZE_HEIGHT = 4;
+    public boolean MAZE_COMPACT = false;
+    public Path MAZE_FILE = null;
+    public int MAZE_CHUNK = 0;
 
     public final Random ra;
     private MazeBuilder mb;
     public int width, height;
     public int[] data;
-    public int[][] maze;
+    public MazeGrid grid;
 
     public final int[] dirs;
 
+    private ExecutorService executor;
+    private Prepared prepared;
+    private MazeBuilder spare;
+
     public Maze(Random random) {
         if (random == null) {
             random = new Random();
@@ -25,28 +47,40 @@ public class Maze {
         ra = random;
         mb = null;
         data = null;
-        maze = null;
+        grid = null;
 
         dirs = new int[4];
     }
 
     public void reset() {
+        discard();
+        spare = null;
+        release();
         mb = null;
         width = height = 0;
         data = null;
-        maze = null;
+        grid = null;
     }
 
     public void buildMaze() {
+        if (MAZE_CHUNK > 0) {
+            buildWorld();
+            return;
+        }
+        if (takePrepared()) return;
+
         boolean hasData = data != null
-                && maze != null;
+                && grid != null;
 
         int rw = MAZE_WIDTH, rh = MAZE_HEIGHT;
-        if (mb == null) {
-            mb = MazeBuilder.with(rw, rh);
-            data = new int[5];
-        } else if (mb.getWidth() != rw || mb.getHeight() != rh) {
-            mb = MazeBuilder.with(rw, rh);
+        boolean compact = MAZE_COMPACT;
+        Path file = MAZE_FILE;
+        if (mb == null || mb.getWidth() != rw || mb.getHeight() != rh
+                || !fits(mb.getGrid(), compact, file)) {
+            release();
+            mb = MazeBuilder.with(newGrid(rw, rh, compact, file));
+            if (file != null) mb.setMode(MODE_LINKED);
+            if (data == null) data = new int[5];
         } else mb.fill();
 
         int sx, sy;
@@ -61,24 +95,191 @@ public class Maze {
             sy = ra.nextInt(mb.getHeight());
         }
 
-        maze = mb
+        grid = mb
                 .setStart(sx, sy)
                 .create(ra, data, true)
-                .getMaze();
+                .getGrid();
         width = mb.getWidth();
         height = mb.getHeight();
     }
 
+    public void prepare(int width, int height) {
+        discard();
+        if (MAZE_CHUNK > 0 || MAZE_FILE != null
+                || data == null || grid == null) return;
+
+        MazeBuilder b = spare;
+        spare = null;
+        if (b == null || b.getWidth() != width || b.getHeight() != height
+                || !fits(b.getGrid(), MAZE_COMPACT, null)) {
+            b = MazeBuilder.with(newGrid(width, height, MAZE_COMPACT, null));
+        }
+
+        int sx = data[3], sy = data[4];
+        sx -= b.getXOff(sx);
+        sy -= b.getYOff(sy);
+
+        Prepared p = new Prepared(b, MAZE_COMPACT, sx, sy, ra.nextLong());
+        p.future = executor().submit(() -> {
+            if (p.claim()) p.build();
+        });
+        prepared = p;
+    }
+
+    private boolean takePrepared() {
+        Prepared p = prepared;
+        prepared = null;
+        if (p == null) return false;
+
+        MazeBuilder b = p.builder;
+        if (b.getWidth() != MAZE_WIDTH || b.getHeight() != MAZE_HEIGHT
+                || p.compact != MAZE_COMPACT || MAZE_FILE != null) {
+            discard(p);
+            return false;
+        }
+
+        // Not started yet, build it here instead of waiting for the worker
+        if (p.claim()) {
+            p.future.cancel(false);
+            p.build();
+        } else {
+            try {
+                p.future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException e) {
+                e.printStackTrace();
+                p.build();
+            }
+        }
+
+        if (mb != null && mb.getGrid() instanceof Closeable) release();
+        else spare = mb;
+        mb = b;
+        data = p.data;
+        grid = b.getGrid();
+        width = b.getWidth();
+        height = b.getHeight();
+        return true;
+    }
+
+    private void discard() {
+        Prepared p = prepared;
+        prepared = null;
+        if (p != null) discard(p);
+    }
+
+    private void discard(Prepared p) {
+        // A running build still owns its builder, only recycle idle ones
+        if (p.claim()) {
+            p.future.cancel(false);
+            spare = p.builder;
+        } else if (p.future.isDone()) spare = p.builder;
+    }
+
+    private ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "Maze-Prepare");
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            });
+        }
+        return executor;
+    }
+
+    private void buildWorld() {
+        discard();
+        spare = null;
+        release();
+        mb = null;
+
+        ChunkedMazeGrid g = new ChunkedMazeGrid(ra.nextLong(), MAZE_CHUNK);
+        int c = g.getChunkSize() / 2;
+        data = new int[] {c, c, -1, -1, -1};
+        grid = g;
+        width = g.getWidth();
+        height = g.getHeight();
+    }
+
+    public void retain(float x, float y, float range) {
+        if (grid instanceof ChunkedMazeGrid) {
+            ((ChunkedMazeGrid) grid).retain(x, y, range);
+        }
+    }
+
+    private void release() {
+        MazeGrid g = mb != null ? mb.getGrid() : null;
+        if (g instanceof Closeable) {
+            try {
+                ((Closeable) g).close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static boolean fits(MazeGrid grid, boolean compact, Path file) {
+        if (grid instanceof MappedMazeGrid) return file != null;
+        if (grid instanceof CompactMazeGrid) return compact && file == null;
+        return !compact && file == null;
+    }
+
+    private static BoundedMazeGrid newGrid(int width, int height, boolean compact, Path file) {
+        if (file != null) {
+            try {
+                return MappedMazeGrid.create(file, width, height);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (compact) return new CompactMazeGrid(width, height);
+        else return new ArrayMazeGrid(width, height);
+    }
+
+    private static final class Prepared {
+        final MazeBuilder builder;
+        final boolean compact;
+        final int sx, sy;
+        final long seed;
+        final int[] data;
+        final AtomicBoolean started;
+        Future<?> future;
+
+        Prepared(MazeBuilder builder, boolean compact, int sx, int sy, long seed) {
+            this.builder = builder;
+            this.compact = compact;
+            this.sx = sx;
+            this.sy = sy;
+            this.seed = seed;
+            this.data = new int[5];
+            this.started = new AtomicBoolean();
+        }
+
+        boolean claim() {
+            return started.compareAndSet(false, true);
+        }
+
+        void build() {
+            builder
+                    .fill()
+                    .setStart(sx, sy)
+                    .create(new Random(seed), data, true);
+        }
+    }
+
     public void countDirs() {
-        int[][] m = maze;
+        MazeGrid m = grid;
         int[] d = data;
         for (int i = 0; i < 4; i++) {
             dirs[i] = 0;
         }
         int cx = d[0], cy = d[1];
-        int lt = pathDir(m[cy][cx]), t;
+        int lt = pathDir(m.get(cx, cy)), t;
         for (int i = 0, len = d[2] - 1; i < len; i++, lt = t) {
-            t = pathDir(m[cy][cx]);
+            t = pathDir(m.get(cx, cy));
             cx += dirX(t);
             cy += dirY(t);
             if (lt != t) dirs[t]++;
@@ -95,6 +296,13 @@ public class Maze {
         return dir;
     }
 
+    public static int openDir(int t) {
+        for (int dir = 0; dir < 4; dir++) {
+            if (!wallDir(t, dir)) return dir;
+        }
+        return 0;
+    }
+
     public static boolean wallDir(int t, int dir) {
         if (dir == 0) return ((t & WL) != 0);
         if (dir == 1) return ((t & WT) != 0);
@@ -1,7 +1,12 @@
 package nmts.game.holder;
 
 import java.awt.*;
-import org.gvoid.engine.math.CMath;
+import nmts.game.grid.MazeGrid;
+import org.gvoid.engine.math.CastBatch;
+import org.gvoid.engine.math.ExclusionMask;
+import org.gvoid.engine.math.FloatSegmentGrid;
+import org.gvoid.engine.math.SegmentGrid;
+import org.gvoid.engine.math.Segments;
 
 import static java.lang.Math.max;
 import static java.lang.Math.min;
@@ -10,70 +15,154 @@ import static nmts.game.builder.MazeBuilder.WL;
 import static nmts.game.builder.MazeBuilder.WR;
 import static nmts.game.builder.MazeBuilder.WT;
 
-public class MazeCollider {
-    private int cap, len;
-    private double[] sp;
-    private long[] es;
+public class MazeCollider implements Collider {
+    public static int MESH_MAX_CELLS = 0x1 << 20;
+    public static int MESH_WINDOW = 32;
+
+    private final Segments seg;
+    private final ExclusionMask mask;
+
+    private MazeGrid mg;
+    private int mx0, my0, mx1, my1;
+
+    private final SegmentGrid index = new SegmentGrid();
+    private boolean indexed;
+
+    private final FloatSegmentGrid findex = new FloatSegmentGrid();
+    private boolean findexed;
 
     public MazeCollider(int minCap) {
-        ensure(minCap);
+        seg = new Segments(max(minCap, 0));
+        mask = new ExclusionMask(seg.capacity());
     }
 
     public int cap() {
-        return cap;
+        return seg.capacity();
     }
 
     public int len() {
-        return len;
+        return seg.size;
+    }
+
+    public Segments segments() {
+        return seg;
     }
 
     public void ensure(int amount) {
-        int l = len;
-        amount -= cap - l;
-        if (amount <= 0) return;
-        int nc = max(amount, l * 2) + 2;
-        double[] nsp = new double[nc * 2];
-        long[] nes = CMath.nBits(nc);
-        if (l > 0) {
-            System.arraycopy(sp, 0, nsp, 0, l * 2);
-            System.arraycopy(es, 0, nes, 0, es.length);
-        }
-        cap = nc;
-        sp = nsp;
-        es = nes;
+        seg.ensure(amount);
     }
 
     public void clear() {
-        if (len > 0) {
-            CMath.cBits(es);
+        seg.clear();
+        mg = null;
+        mx0 = my0 = 0;
+        mx1 = my1 = -1;
+        indexed = findexed = false;
+    }
+
+    @Override
+    public void build(MazeGrid grid) {
+        int w = grid.getWidth(), h = grid.getHeight();
+        if ((long) w * (long) h <= MESH_MAX_CELLS) {
+            build(grid, 0, 0, w, h);
+        } else {
+            clear();
+            mg = grid;
+        }
+    }
+
+    @Override
+    public void cover(MazeGrid grid, int x, int y, int rad) {
+        int w = grid.getWidth(), h = grid.getHeight();
+        int sx = max(x - rad, 0), sy = max(y - rad, 0);
+        int ex = min(x + rad + 1, w), ey = min(y + rad + 1, h);
+        if (grid == mg && sx >= mx0 && sy >= my0 && ex <= mx1 && ey <= my1) return;
+
+        if (grid != mg && (long) w * (long) h <= MESH_MAX_CELLS) {
+            build(grid, 0, 0, w, h);
+            return;
         }
-        len = 0;
+        int win = max(MESH_WINDOW, rad + 1);
+        build(grid, x - win, y - win, x + win + 1, y + win + 1);
     }
 
-    public void insert(int[][] grid, double sc) {
+    public void build(MazeGrid grid, int sx, int sy, int ex, int ey) {
+        clear();
+        sx = max(sx, 0);
+        sy = max(sy, 0);
+        ex = min(ex, grid.getWidth());
+        ey = min(ey, grid.getHeight());
+
+        int xi, yi, ri;
+        for (yi = sy; yi <= ey; yi++) {
+            for (xi = sx, ri = -1; xi <= ex; xi++) {
+                boolean wall = xi < ex && hWall(grid, xi, yi);
+                if (wall && ri < 0) ri = xi;
+                else if (!wall && ri >= 0) {
+                    segment(ri, yi, xi, yi);
+                    ri = -1;
+                }
+            }
+        }
+        for (xi = sx; xi <= ex; xi++) {
+            for (yi = sy, ri = -1; yi <= ey; yi++) {
+                boolean wall = yi < ey && vWall(grid, xi, yi);
+                if (wall && ri < 0) ri = yi;
+                else if (!wall && ri >= 0) {
+                    segment(xi, ri, xi, yi);
+                    ri = -1;
+                }
+            }
+        }
+
+        index.build(seg, 1d);
+        indexed = true;
+        findexed = false;
+
+        mg = grid;
+        mx0 = sx;
+        my0 = sy;
+        mx1 = ex;
+        my1 = ey;
+    }
+
+    private static boolean hWall(MazeGrid grid, int x, int y) {
+        return y < grid.getHeight() && (grid.get(x, y) & WT) != 0
+                || y > 0 && (grid.get(x, y - 1) & WB) != 0;
+    }
+
+    private static boolean vWall(MazeGrid grid, int x, int y) {
+        return x < grid.getWidth() && (grid.get(x, y) & WL) != 0
+                || x > 0 && (grid.get(x - 1, y) & WR) != 0;
+    }
+
+    private void segment(double x1, double y1, double x2, double y2) {
+        seg.add(x1, y1, x2, y2);
+    }
+
+    public void insert(MazeGrid grid, double sc) {
         int xi, yi;
-        int[] row;
-        for (yi = 0; yi < grid.length; yi++) {
-            row = grid[yi];
-            for (xi = 0; xi < row.length; xi++) {
-                insert((double) xi * sc, (double) yi * sc, sc, row[xi]);
+        int w = grid.getWidth(), h = grid.getHeight();
+        for (yi = 0; yi < h; yi++) {
+            for (xi = 0; xi < w; xi++) {
+                insert((double) xi * sc, (double) yi * sc, sc, grid.get(xi, yi));
             }
         }
     }
 
-    public void insert(int[][] grid, int x, int y, int rad, double sc) {
+    public void insert(MazeGrid grid, int x, int y, int rad, double sc) {
         insert(grid, x - rad, y - rad, x + rad + 1, y + rad + 1, sc);
     }
 
-    public void insert(int[][] grid, int sx, int sy, int ex, int ey, double sc) {
+    public void insert(MazeGrid grid, int sx, int sy, int ex, int ey, double sc) {
         sx = max(sx, 0);
         sy = max(sy, 0);
+        ex = min(ex, grid.getWidth());
+        ey = min(ey, grid.getHeight());
         int xi, yi;
-        int[] row;
-        for (yi = min(ey, grid.length) - 1; yi >= sy; yi--) {
-            row = grid[yi];
-            for (xi = min(ex, row.length) - 1; xi >= sx; xi--) {
-                insert((double) xi * sc, (double) yi * sc, sc, row[xi]);
+        for (yi = ey - 1; yi >= sy; yi--) {
+            for (xi = ex - 1; xi >= sx; xi--) {
+                insert((double) xi * sc, (double) yi * sc, sc, grid.get(xi, yi));
             }
         }
     }
@@ -83,8 +172,8 @@ public class MazeCollider {
     }
 
     public void insert(double x, double y, double sc, int t) {
-        ensure(WP.length);
-        len = insert(x, y, sc, t, sp, es, len);
+        indexed = findexed = false;
+        insert(x, y, sc, t, seg);
     }
 
     public boolean castRay(double[] t, double px, double py, double dx, double dy, double d) {
@@ -95,49 +184,60 @@ public class MazeCollider {
         return castSphere(t, px, py, dx, dy, d, 0d, clamp, exc);
     }
 
+    @Override
     public boolean castSphere(double[] t, double px, double py, double dx, double dy, double d, double r) {
         return castSphere(t, px, py, dx, dy, d, r, true, false);
     }
 
+    @Override
     public boolean castSphere(double[] t, double px, double py, double dx, double dy, double d, double r, boolean clamp, boolean exc) {
-        if (len < 2) return false;
-        long[] es = this.es;
+        if (seg.size < 1) return false;
+        ExclusionMask ex = null;
         if (exc) {
-            int esl = es.length;
-            long[] nes = new long[esl];
-            System.arraycopy(es, 0, nes, 0, esl);
-            es = nes;
+            ex = mask;
+            ex.reset();
         }
-        int hi = CMath.castSphere(t, sp, es, len, px, py, dx, dy, d, r, clamp, exc);
+        int hi = indexed
+                 ? index.castSphere(t, ex, px, py, dx, dy, d, r, clamp, exc)
+                 : seg.castSphere(t, ex, px, py, dx, dy, d, r, clamp, exc);
         return hi >= 0;
     }
 
-    public void render(Graphics2D graphics, double x, double y, double sc) {
-        if (len < 2) return;
-
-        double[] s = sp;
-        long[] e = es;
-
-        int si = 2, sl = len;
-        double sx = s[0], sy = s[1], ex, ey;
-        do {
-            int ii = si / 2;
-
-            ex = s[si++];
-            ey = s[si++];
-
-            if (!CMath.has(e, ii)) {
-                graphics.drawLine(
-                        (int) (x + sx * sc),
-                        (int) (y + sy * sc),
-                        (int) (x + ex * sc),
-                        (int) (y + ey * sc)
-                );
-            }
+    @Override
+    public boolean castSphere(float[] t, float px, float py, float dx, float dy, float d, float r) {
+        return castSphere(t, px, py, dx, dy, d, r, true, false);
+    }
 
-            sx = ex;
-            sy = ey;
-        } while (si < sl * 2);
+    @Override
+    public boolean castSphere(float[] t, float px, float py, float dx, float dy, float d, float r, boolean clamp, boolean exc) {
+        if (seg.size < 1) return false;
+        if (!findexed) {
+            findex.build(seg, 1f);
+            findexed = true;
+        }
+        ExclusionMask ex = null;
+        if (exc) {
+            ex = mask;
+            ex.reset();
+        }
+        return findex.castSphere(t, ex, px, py, dx, dy, d, r, clamp, exc) >= 0;
+    }
+
+    public void castSpheres(CastBatch batch, boolean parallel) {
+        if (indexed) batch.cast(index, true, parallel);
+        else batch.cast(seg, true, parallel);
+    }
+
+    public void render(Graphics2D graphics, double x, double y, double sc) {
+        Segments s = seg;
+        for (int i = 0, l = s.size; i < l; i++) {
+            graphics.drawLine(
+                    (int) (x + s.x1[i] * sc),
+                    (int) (y + s.y1[i] * sc),
+                    (int) (x + s.x2[i] * sc),
+                    (int) (y + s.y2[i] * sc)
+            );
+        }
     }
 
     public static final int[] W = {
@@ -151,22 +251,12 @@ public class MazeCollider {
             0.0d, 1.0d
     };
 
-    public static int insert(double x, double y, double sc, int t, double[] s, long[] es, int len) {
-        boolean dc = true;
-        int c = W.length;
-        for (int i = 0, wi = 0, ti, ai = len * 2; i < c; i++) {
-            if ((t & W[i]) == 0) {
-                if (dc) wi += 2;
-                dc = true;
-            } else {
-                if (dc) CMath.set(es, len);
-                for (ti = dc ? 2 : 1; ti > 0; ti--, len++) {
-                    s[ai++] = x + WP[wi++] * sc;
-                    s[ai++] = y + WP[wi++] * sc;
-                }
-                dc = false;
-            }
+    public static int insert(double x, double y, double sc, int t, Segments s) {
+        for (int i = 0, wi = 0, c = W.length; i < c; i++, wi += 2) {
+            if ((t & W[i]) == 0) continue;
+            s.add(x + WP[wi] * sc, y + WP[wi + 1] * sc,
+                  x + WP[wi + 2] * sc, y + WP[wi + 3] * sc);
         }
-        return len;
+        return s.size;
     }
 }
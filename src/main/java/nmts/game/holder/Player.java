@@ -1,6 +1,7 @@
 package nmts.game.holder;
 
 import nmts.game.builder.MazeBuilder;
+import nmts.game.grid.MazeGrid;
 import org.gvoid.engine.math.Maths;
 
 public class Player {
@@ -13,8 +14,9 @@ public class Player {
     private static final float PRECISION = 0.05f;
 
     private final Maze maze;
-    private final MazeCollider collider;
+    private final Collider collider;
     private final Camera camera;
+    private final float[] tr;
     public float x, y;
     public int dir;
     public double angle, absAngle;
@@ -24,10 +26,11 @@ public class Player {
     public float sps = 2.1f;
     public float radius = 0.17f;
 
-    public Player(Maze maze, MazeCollider collider, Camera camera) {
+    public Player(Maze maze, Collider collider, Camera camera) {
         this.maze = maze;
         this.collider = collider;
         this.camera = camera;
+        this.tr = new float[5];
         this.y = this.x = 0.5f;
         reset(true);
     }
@@ -48,15 +51,15 @@ public class Player {
         x = d[0] + Maths.clamp(x % 1f, inset, 1f - inset);
         y = d[1] + Maths.clamp(y % 1f, inset, 1f - inset);
 
-        int t = maze.maze[d[1]][d[0]];
-        dir = Maze.pathDir(t);
+        int t = maze.grid.get(d[0], d[1]);
+        dir = Maze.atPath(t) ? Maze.pathDir(t) : Maze.openDir(t);
         dx = dy = 0f;
 
         syncCam(jump);
     }
 
     public int update(float deltaTime) {
-        int[][] m = maze.maze;
+        MazeGrid m = maze.grid;
         if (m == null) return FROZEN;
 
         int state = ON_PATH;
@@ -93,22 +96,15 @@ public class Player {
         float px = this.x + rdx, py = this.y + rdy;
         int apx = (int) this.x, apy = (int) this.y;
 
-        int pt;
-        try {
-            pt = m[apy][apx];
-        } catch (Exception e) {
-            e.printStackTrace();
-            pt = MazeBuilder.WA;
-        }
+        int pt = m.isIn(apx, apy) ? m.get(apx, apy) : MazeBuilder.WA;
         boolean whw = Maze.wallDir(pt, dir);
 
-        collider.clear();
-        collider.insert(m, apx, apy, (int) rd, 1d);
+        collider.cover(m, apx, apy, (int) rd);
 
-        double[] tr = new double[5];
+        float[] tr = this.tr;
         if (collider.castSphere(tr, px, py, mdx, mdy, rd, radius - prc) && tr[2] <= mdt) {
-            mdx = (float) tr[0] - px;
-            mdy = (float) tr[1] - py;
+            mdx = tr[0] - px;
+            mdy = tr[1] - py;
 
             if (whw) {
                 dx = dy = 0f;
@@ -119,7 +115,7 @@ public class Player {
             }
 
             state = AT_WALL;
-            move = tr[2] > 0d;
+            move = tr[2] > 0f;
         }
 
         if (move) {
@@ -3,14 +3,20 @@ package nmts.game.screen;
 import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 import java.io.InputStream;
+import nmts.game.grid.MazeGrid;
 import nmts.game.holder.Camera;
 import nmts.game.holder.Maze;
+import nmts.game.holder.Collider;
+import nmts.game.holder.GridCollider;
 import nmts.game.holder.MazeCollider;
 import nmts.game.holder.Player;
 import nmts.game.time.StopWatch;
 import org.gvoid.engine.Game;
 import org.gvoid.engine.math.Maths;
+import org.gvoid.engine.math.Point2;
+import org.gvoid.engine.utils.TintComposite;
 
 import static nmts.game.builder.MazeBuilder.WB;
 import static nmts.game.builder.MazeBuilder.WL;
@@ -27,6 +33,8 @@ public class PlayScreen extends Game {
     public static final int FLAG_HIDE_MARKERS = 64;
     public static final int FLAG_HIDE_WALLS = 128;
     public static final int FLAG_SHOW_TIMER = 256;
+    public static final int FLAG_ENDLESS = 512;
+    public static final int FLAG_GRID_COLLISION = 1024;
 
     public static final int MIN_MAZE_SIZE_X = 3;
     public static final int MIN_MAZE_SIZE_Y = 3;
@@ -34,6 +42,11 @@ public class PlayScreen extends Game {
     public static final int MAX_MAZE_SIZE_X = 8;
     public static final int MAX_MAZE_SIZE_Y = 8;
 
+    public static final int ENDLESS_CHUNK_SHIFT = 4;
+
+    public static float STEP = 1f / 120f;
+    public static int MAX_STEPS = 8;
+
     public static float VIEW_DISTANCE = 2.4f;
     public static float VIEW_SCALE = 4f;
 
@@ -56,6 +69,9 @@ public class PlayScreen extends Game {
     public static final Color KEY_DIR_COLOR = new Color(0.7f, 0.7f, 0.7f);
     public static final Color KEY_PRESS_COLOR = new Color(0.98f, 0.98f, 0.98f);
 
+    public static final int MAX_LAYER_SIZE = 4096;
+    public static final long MAX_LAYER_BYTES = 16L << 20;
+
     public static final String FONT_PATH = "/fonts/JetBrainsMono-Bold.ttf";
     public static final float FONT_SCALE = 0.22f;
 
@@ -75,7 +91,7 @@ public class PlayScreen extends Game {
     private final int flags;
 
     private final Maze maze;
-    private final MazeCollider collider;
+    private final Collider collider;
     private final Camera camera;
     private final Player player;
 
@@ -93,9 +109,17 @@ public class PlayScreen extends Game {
 
     private double angle;
 
+    private float lpx, lpy;
+    private float lcx, lcy;
+
     private Font lastFont;
     private float lastFontSize;
 
+    private BufferedImage wallLayer;
+    private TintComposite wallTint;
+    private float layerGs, lastGs;
+    private int[] wallRuns;
+
     private final StopWatch stopWatch;
 
     public PlayScreen() {
@@ -103,27 +127,40 @@ public class PlayScreen extends Game {
     }
 
     public PlayScreen(int flags) {
+        if ((flags & FLAG_ENDLESS) != 0) {
+            flags |= FLAG_INFINITE_MOVES;
+        }
         this.flags = flags;
 
         maze = new Maze(null);
         maze.MAZE_WIDTH = MIN_MAZE_SIZE_X;
         maze.MAZE_HEIGHT = MIN_MAZE_SIZE_Y;
+        if ((flags & FLAG_ENDLESS) != 0) {
+            maze.MAZE_CHUNK = ENDLESS_CHUNK_SHIFT;
+        }
 
         maze.buildMaze();
+        maze.prepare(nextWidth(), nextHeight());
         if ((flags & FLAG_INFINITE_MOVES) == 0) {
             maze.countDirs();
         }
 
-        collider = new MazeCollider(20);
+        if ((flags & FLAG_GRID_COLLISION) != 0) {
+            collider = new GridCollider();
+        } else collider = new MazeCollider(20);
+        collider.build(maze.grid);
 
         camera = new Camera();
-        if ((flags & FLAG_SHOW_ALL) == 0) {
+        if ((flags & FLAG_SHOW_ALL) == 0 || (flags & FLAG_ENDLESS) != 0) {
             camera.setDestRange(VIEW_DISTANCE, true);
         }
         camera.setDestScale(VIEW_SCALE, true);
 
         player = new Player(maze, collider, camera);
         angle = player.angle;
+        snap();
+
+        setFixedStep(STEP, MAX_STEPS);
 
         show = 0f;
         change = false;
@@ -154,24 +191,43 @@ public class PlayScreen extends Game {
         change = ch;
     }
 
+    private int nextWidth() {
+        return Math.min(maze.MAZE_WIDTH + 2, MAX_MAZE_SIZE_X);
+    }
+
+    private int nextHeight() {
+        return Math.min(maze.MAZE_HEIGHT + 2, MAX_MAZE_SIZE_Y);
+    }
+
     public void reset(boolean change) {
         if (change) {
-            maze.MAZE_WIDTH = Math.min(maze.MAZE_WIDTH + 2, MAX_MAZE_SIZE_X);
-            maze.MAZE_HEIGHT = Math.min(maze.MAZE_HEIGHT + 2, MAX_MAZE_SIZE_Y);
+            maze.MAZE_WIDTH = nextWidth();
+            maze.MAZE_HEIGHT = nextHeight();
 
             maze.buildMaze();
+            maze.prepare(nextWidth(), nextHeight());
+            collider.build(maze.grid);
+            invalidateLayer();
         }
         if ((flags & FLAG_INFINITE_MOVES) == 0) {
             maze.countDirs();
         }
         player.reset();
         angle = player.angle;
+        snap();
 
         if ((flags & FLAG_SHOW_TIMER) != 0 && change) {
             stopWatch.reset();
         }
     }
 
+    private void snap() {
+        lpx = player.x;
+        lpy = player.y;
+        lcx = camera.x;
+        lcy = camera.y;
+    }
+
     public void blink(Color color) {
         if (color == null) {
             color = Color.BLACK;
@@ -220,6 +276,8 @@ public class PlayScreen extends Game {
 
     @Override
     protected void onUpdate(float deltaTime) {
+        snap();
+
         if (show > -1f) {
             float nds = Math.max(show - deltaTime / SHOW_T, -1f);
             if ((show >= 0f) != (nds >= 0f)) reset(change);
@@ -254,6 +312,7 @@ public class PlayScreen extends Game {
         }
 
         int state = player.update(deltaTime);
+        maze.retain(player.x, player.y, camera.range);
 
         if (show < 0f) {
             boolean reset = false, change = false;
@@ -264,6 +323,7 @@ public class PlayScreen extends Game {
                     blink(Color.GREEN);
                 }
                 case Player.OFF_PATH -> {
+                    if ((flags & FLAG_ENDLESS) != 0) break;
                     reset = true;
                     blink(Color.RED);
                 }
@@ -282,6 +342,11 @@ public class PlayScreen extends Game {
         }
     }
 
+    @Override
+    protected void onResize(Point2 newSize) {
+        invalidateLayer();
+    }
+
     public Font getFont(Float size) {
         if (size == null) return lastFont;
         if (FONT == null) return null;
@@ -295,16 +360,17 @@ public class PlayScreen extends Game {
     }
 
     @Override
-    protected void onRender(Graphics2D graphics) {
+    protected void onRender(Graphics2D graphics, float alpha) {
         graphics.setColor(Color.BLACK);
         graphics.fillRect(0, 0, size.xInt(), size.yInt());
 
         int[] d = maze.data;
-        int[][] m = maze.maze;
+        MazeGrid m = maze.grid;
         if (m == null) return;
 
         float scale = camera.scale;
-        float ox = camera.x, oy = camera.y;
+        float ox = Maths.lerp(lcx, camera.x, alpha);
+        float oy = Maths.lerp(lcy, camera.y, alpha);
         float rangeSq = camera.rangeSq;
 
         float sd = Math.abs(show);
@@ -315,15 +381,14 @@ public class PlayScreen extends Game {
         float cx = size.xFloat() / 2f, cy = size.yFloat() / 2f;
         float cw = size.xFloat() / mw, ch = size.yFloat() / mh;
 
-        float rgs = (float) (mw + mh) / 2f / scale;
+        float rgs = ((float) mw + (float) mh) / 2f / scale;
         float gs = Math.min(cw, ch) * 0.9f * rgs;
         //float gs = Math.min(cw, ch) * 0.9f * scale;
 
-        float ws = gs / 16f, ows = ws - 1f;
-        float tws = ws * 2f, ews = tws - 2f;
+        float ws = gs / 16f;
+        float tws = ws * 2f;
 
         float sw = ws / 2f, tsw = sw * 2f;
-        int wcr = (int) (tws * 0.9f);
         int fcr = (int) (tws * 0.3f);
 
         float aox = ox * gs, aoy = oy * gs;
@@ -349,14 +414,17 @@ public class PlayScreen extends Game {
             if ((flags & FLAG_HIDE_MARKERS) == 0) {
                 graphics.setColor(Color.DARK_GRAY);
                 graphics.fillRoundRect((int) (left + gs * (double) d[0]), (int) (top + gs * (double) d[1]), (int) gs, (int) gs, fcr, fcr);
-                graphics.setColor(Color.LIGHT_GRAY);
-                graphics.fillRoundRect((int) (left + gs * (double) d[3]), (int) (top + gs * (double) d[4]), (int) gs, (int) gs, fcr, fcr);
+                if (d[3] >= 0) {
+                    graphics.setColor(Color.LIGHT_GRAY);
+                    graphics.fillRoundRect((int) (left + gs * (double) d[3]), (int) (top + gs * (double) d[4]), (int) gs, (int) gs, fcr, fcr);
+                }
             }
 
             graphics.setColor(mixColors(PULSE_OFF, PULSE_ON, pulseI));
             graphics.drawRoundRect((int) (pfx + ws + sw), (int) (pfy + ws + sw), (int) (gs - tws - tsw), (int) (gs - tws - tsw), fcr, fcr);
 
-            float apx = player.x, apy = player.y;
+            float apx = Maths.lerp(lpx, player.x, alpha);
+            float apy = Maths.lerp(lpy, player.y, alpha);
             float plx = left + apx * gs;
             float ply = top + apy * gs;
             float pr = player.radius * gs, tpr = pr * 2f;
@@ -371,68 +439,51 @@ public class PlayScreen extends Game {
             graphics.fillArc((int) (plx - pr), (int) (ply - pr), (int) tpr, (int) tpr, (int) angle, (int) arcAngle);
 
             if ((flags & FLAG_HIDE_WALLS) == 0) {
-                if (blinkOn) {
-                    graphics.setColor(blinkColor);
-                } else {
-                    graphics.setColor(GRID_COLOR);
+                Color wc = blinkOn ? blinkColor : GRID_COLOR;
+
+                // Half extents of the viewport in cells, around the camera at its centre
+                float ex = cx / gs, ey = cy / gs;
+                if ((flags & FLAG_ROTATE_VIEW) != 0) {
+                    double va = player.angle - Math.PI / 2d;
+                    float vc = (float) Math.abs(Math.cos(va)), vs = (float) Math.abs(Math.sin(va));
+                    float rx = vc * ex + vs * ey;
+                    ey = vs * ex + vc * ey;
+                    ex = rx;
                 }
-
-                float wpx, wpy, wpd;
-                int wfy, wf;
-                for (int y = 0; y < mh; y++) {
-                    final int[] row = m[y];
-                    wfy = y == mh - 1 ? WB : 0;
-                    wfy |= y == 0 ? WT : 0;
-                    for (int x = 0; x < mw; x++) {
-                        wf = wfy;
-                        wf |= x == mw - 1 ? WR : 0;
-                        wf |= x == 0 ? WL : 0;
-
-                        wpx = apx - (float) (x) - 0.5f;
-                        wpy = apy - (float) (y) - 0.5f;
-                        wpd = wpx * wpx + wpy * wpy;
-                        if (wpd > rangeSq) continue;
-
-                        final int t = row[x];
-
-                        final float ax = left + gs * x;
-                        final float ay = top + gs * y;
-
-                        final float s = gs * sd;
-
-                        if ((t & WL) != 0) {
-                            final float os = (wf & WL) != 0 ? gs : s;
-                            graphics.fillRoundRect((int) (ax - ws),
-                                                   (int) (ay - ows),
-                                                   (int) tws,
-                                                   (int) (os + ews),
-                                                   wcr, wcr);
-                        }
-                        if ((t & WT) != 0) {
-                            final float os = (wf & WT) != 0 ? gs : s;
-                            graphics.fillRoundRect((int) (ax - ows),
-                                                   (int) (ay - ws),
-                                                   (int) (os + ews),
-                                                   (int) tws,
-                                                   wcr, wcr);
-                        }
-                        if ((t & WR) != 0) {
-                            final float os = (wf & WR) != 0 ? gs : s;
-                            graphics.fillRoundRect((int) (ax + gs - ws),
-                                                   (int) (ay - ows),
-                                                   (int) tws,
-                                                   (int) (os + ews),
-                                                   wcr, wcr);
-                        }
-                        if ((t & WB) != 0) {
-                            final float os = (wf & WB) != 0 ? gs : s;
-                            graphics.fillRoundRect((int) (ax - ows),
-                                                   (int) (ay + gs - ws),
-                                                   (int) (os + ews),
-                                                   (int) tws,
-                                                   wcr, wcr);
-                        }
+                // Walls reach a sixteenth of a cell past their cell
+                ex += 0.125f;
+                ey += 0.125f;
+
+                float range = camera.range;
+                int x0 = Math.max(Math.max((int) Math.floor(apx - range - 0.5f), (int) Math.floor(ox - ex)), 0);
+                int y0 = Math.max(Math.max((int) Math.floor(apy - range - 0.5f), (int) Math.floor(oy - ey)), 0);
+                int x1 = Math.min(Math.min((int) Math.floor(apx + range - 0.5f), (int) Math.floor(ox + ex)), mw - 1);
+                int y1 = Math.min(Math.min((int) Math.floor(apy + range - 0.5f), (int) Math.floor(oy + ey)), mh - 1);
+
+                // Walls are only static once the level transition is over and the zoom settled,
+                // a rotated view would resample the layer every frame so it draws them directly
+                boolean still = sd >= 1f && gs == lastGs && (flags & FLAG_ROTATE_VIEW) == 0;
+                lastGs = gs;
+
+                BufferedImage layer = still ? wallLayer(graphics, m, mw, mh, gs) : null;
+                if (layer != null) {
+                    // The layer is drawn in GRID_COLOR, other colors tint it while it is blitted
+                    Composite composite = null;
+                    if (!GRID_COLOR.equals(wc)) {
+                        if (wallTint == null || !wc.equals(wallTint.getColor())) wallTint = new TintComposite(wc);
+                        composite = graphics.getComposite();
+                        graphics.setComposite(wallTint);
+                    }
+                    try {
+                        blitWalls(graphics, layer, x0, y0, x1, y1,
+                                  left, top, gs, apx, apy, rangeSq);
+                    } finally {
+                        if (composite != null) graphics.setComposite(composite);
                     }
+                } else {
+                    graphics.setColor(wc);
+                    drawWalls(graphics, m, mw, mh, x0, y0, x1, y1,
+                              left, top, gs, sd, apx, apy, rangeSq);
                 }
 
                 graphics.setColor(COLLISION_GRID_COLOR);
@@ -464,6 +515,187 @@ public class PlayScreen extends Game {
         }
     }
 
+    private void drawWalls(Graphics2D graphics, MazeGrid m, int mw, int mh,
+                           int x0, int y0, int x1, int y1,
+                           float left, float top, float gs, float sd,
+                           float apx, float apy, float rangeSq) {
+        float ws = gs / 16f, ows = ws - 1f;
+        float tws = ws * 2f, ews = tws - 2f;
+        int wcr = (int) (tws * 0.9f);
+
+        float wpr;
+        int wfy, wf;
+        for (int y = y0; y <= y1; y++) {
+            wpr = reach(apy, y, rangeSq);
+            if (wpr < 0f) continue;
+
+            wfy = y == mh - 1 ? WB : 0;
+            wfy |= y == 0 ? WT : 0;
+            for (int x = runStart(apx, wpr, x0), rx1 = runEnd(apx, wpr, x1); x <= rx1; x++) {
+                wf = wfy;
+                wf |= x == mw - 1 ? WR : 0;
+                wf |= x == 0 ? WL : 0;
+
+                final int t = m.get(x, y);
+
+                final float ax = left + gs * x;
+                final float ay = top + gs * y;
+
+                final float s = gs * sd;
+
+                if ((t & WL) != 0) {
+                    final float os = (wf & WL) != 0 ? gs : s;
+                    graphics.fillRoundRect((int) (ax - ws),
+                                           (int) (ay - ows),
+                                           (int) tws,
+                                           (int) (os + ews),
+                                           wcr, wcr);
+                }
+                if ((t & WT) != 0) {
+                    final float os = (wf & WT) != 0 ? gs : s;
+                    graphics.fillRoundRect((int) (ax - ows),
+                                           (int) (ay - ws),
+                                           (int) (os + ews),
+                                           (int) tws,
+                                           wcr, wcr);
+                }
+                if ((t & WR) != 0) {
+                    final float os = (wf & WR) != 0 ? gs : s;
+                    graphics.fillRoundRect((int) (ax + gs - ws),
+                                           (int) (ay - ows),
+                                           (int) tws,
+                                           (int) (os + ews),
+                                           wcr, wcr);
+                }
+                if ((t & WB) != 0) {
+                    final float os = (wf & WB) != 0 ? gs : s;
+                    graphics.fillRoundRect((int) (ax - ows),
+                                           (int) (ay + gs - ws),
+                                           (int) (os + ews),
+                                           (int) tws,
+                                           wcr, wcr);
+                }
+            }
+        }
+    }
+
+    private void blitWalls(Graphics2D graphics, BufferedImage layer,
+                           int x0, int y0, int x1, int y1,
+                           float left, float top, float gs,
+                           float apx, float apy, float rangeSq) {
+        int rows = y1 - y0 + 1;
+        if (rows <= 0) return;
+        int[] runs = wallRuns;
+        if (runs == null || runs.length < rows * 2) wallRuns = runs = new int[rows * 2];
+
+        float wpr;
+        for (int i = 0; i < rows; i++) {
+            wpr = reach(apy, y0 + i, rangeSq);
+            if (wpr < 0f) {
+                runs[i * 2] = 0;
+                runs[i * 2 + 1] = -1;
+                continue;
+            }
+            runs[i * 2] = runStart(apx, wpr, x0);
+            runs[i * 2 + 1] = runEnd(apx, wpr, x1);
+        }
+
+        // Only reach as far past a cell as its own walls do
+        int pad = layerPad(gs), ext = (int) Math.ceil(gs / 16f) + 1;
+        int ix = (int) Math.floor(left) - pad, iy = (int) Math.floor(top) - pad;
+        for (int i = 0; i < rows; i++) {
+            int rx0 = runs[i * 2], rx1 = runs[i * 2 + 1];
+            if (rx0 > rx1) continue;
+
+            int y = y0 + i;
+            int sx0 = edge(gs, rx0) + pad - ext, sx1 = edge(gs, rx1 + 1) + pad + ext;
+            int sy0 = edge(gs, y) + pad, sy1 = edge(gs, y + 1) + pad;
+            blit(graphics, layer, ix, iy, sx0, sy0, sx1, sy1);
+
+            // Overhang into the rows above and below, where those don't cover it already
+            for (int k = -1; k <= 1; k += 2) {
+                int j = i + k;
+                int nx0 = j >= 0 && j < rows ? runs[j * 2] : 0;
+                int nx1 = j >= 0 && j < rows ? runs[j * 2 + 1] : -1;
+                int ey0 = k < 0 ? sy0 - ext : sy1, ey1 = ey0 + ext;
+                if (nx0 > nx1 || nx0 > rx1 || nx1 < rx0) {
+                    blit(graphics, layer, ix, iy, sx0, ey0, sx1, ey1);
+                    continue;
+                }
+                if (nx0 > rx0) blit(graphics, layer, ix, iy, sx0, ey0, edge(gs, nx0) + pad - ext, ey1);
+                if (nx1 < rx1) blit(graphics, layer, ix, iy, edge(gs, nx1 + 1) + pad + ext, ey0, sx1, ey1);
+            }
+        }
+    }
+
+    /*
+     * Cells of a row within range are one run around the player, reach is
+     * the half width of that run (negative when the row is out of range).
+     */
+    private static float reach(float apy, int y, float rangeSq) {
+        float wpy = apy - (float) (y) - 0.5f;
+        float wpr = rangeSq - wpy * wpy;
+        return wpr < 0f ? -1f : (float) Math.sqrt(wpr);
+    }
+
+    private static int runStart(float apx, float reach, int x0) {
+        return Math.max((int) Math.ceil(apx - 0.5f - reach), x0);
+    }
+
+    private static int runEnd(float apx, float reach, int x1) {
+        return Math.min((int) Math.floor(apx - 0.5f + reach), x1);
+    }
+
+    private static int edge(float gs, int cell) {
+        return (int) (gs * cell);
+    }
+
+    private static void blit(Graphics2D graphics, BufferedImage layer, int ix, int iy,
+                             int sx0, int sy0, int sx1, int sy1) {
+        if (sx0 >= sx1 || sy0 >= sy1) return;
+        graphics.drawImage(layer,
+                           ix + sx0, iy + sy0, ix + sx1, iy + sy1,
+                           sx0, sy0, sx1, sy1,
+                           null);
+    }
+
+    private static int layerPad(float gs) {
+        return (int) Math.ceil(gs / 8f) + 1;
+    }
+
+    private BufferedImage wallLayer(Graphics2D target, MazeGrid m, int mw, int mh, float gs) {
+        if (wallLayer != null && layerGs == gs) return wallLayer;
+        wallLayer = null;
+
+        int pad = layerPad(gs);
+        long lw = (long) Math.ceil(gs * mw) + pad * 2L;
+        long lh = (long) Math.ceil(gs * mh) + pad * 2L;
+        if (lw > MAX_LAYER_SIZE || lh > MAX_LAYER_SIZE) return null;
+        // Four bytes a pixel, stay within a small part of the heap on top of the budget
+        long bytes = Math.min(MAX_LAYER_BYTES, Runtime.getRuntime().maxMemory() / 16L);
+        if (lw * lh * 4L > bytes) return null;
+
+        // Compatible images can be kept in video memory by the pipeline
+        BufferedImage layer = target.getDeviceConfiguration()
+                .createCompatibleImage((int) lw, (int) lh, Transparency.TRANSLUCENT);
+        Graphics2D graphics = layer.createGraphics();
+        try {
+            graphics.setRenderingHints(target.getRenderingHints());
+            graphics.setColor(GRID_COLOR);
+            drawWalls(graphics, m, mw, mh, 0, 0, mw - 1, mh - 1,
+                      pad, pad, gs, 1f, 0f, 0f, Float.MAX_VALUE);
+        } finally {
+            graphics.dispose();
+        }
+        wallLayer = layer;
+        layerGs = gs;
+        return layer;
+    }
+
+    private void invalidateLayer() {
+        wallLayer = null;
+    }
+
     public void drawInputs(Graphics2D graphics, float sizeX, float sizeY, float offset, float inset) {
         float left = this.size.xFloat() - offset * 2f - sizeX * 3f - inset, ll;
         float top = this.size.yFloat() - offset - sizeY * 2f - inset, lt;
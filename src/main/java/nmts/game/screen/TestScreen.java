@@ -3,12 +3,20 @@ package nmts.game.screen;
 import java.awt.*;
 import org.gvoid.engine.Game;
 import org.gvoid.engine.math.CMath;
+import org.gvoid.engine.math.Point2;
+import org.gvoid.engine.math.Segments;
 
 public class TestScreen extends Game {
     private double[] shape;
+    private final Segments segments;
+    private final double[] t;
+    private final Point2 cp;
 
     public TestScreen() {
         shape = new double[0];
+        segments = new Segments(16);
+        t = new double[5];
+        cp = new Point2();
     }
 
     @Override
@@ -33,6 +41,8 @@ public class TestScreen extends Game {
         n[l++] = ax;
         n[l++] = ay;
         shape = n;
+
+        if (nl >= 4) segments.add(n[nl - 4], n[nl - 3], ax, ay);
     }
 
     @Override
@@ -54,11 +64,13 @@ public class TestScreen extends Game {
             sy = ey;
         } while (si < sl);
 
-        double px = cursor.pos.x;
-        double py = cursor.pos.y;
+        Point2 cp = cursor.getPos(this.cp);
+        double px = cp.x;
+        double py = cp.y;
 
-        double[] t = new double[5];
-        int i = CMath.distToShape(t, s, null, s.length / 2, px, py, true);
+        double[] t = this.t;
+        int i = segments.distToShape(t, null, px, py, 0d, 0d, Double.MAX_VALUE, true, false);
+        if (i < 0) return;
         CMath.calc(t);
 
         double hpx = t[3], hpy = t[4], hr = 5d;
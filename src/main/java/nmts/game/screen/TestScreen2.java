@@ -3,14 +3,25 @@ package nmts.game.screen;
 import java.awt.*;
 import org.gvoid.engine.Game;
 import org.gvoid.engine.math.CMath;
+import org.gvoid.engine.math.ExclusionMask;
+import org.gvoid.engine.math.Point2;
+import org.gvoid.engine.math.Segments;
 
 public class TestScreen2 extends Game {
     private double[] shape;
     private long[] skip;
+    private Segments segments;
+    private ExclusionMask mask;
+    private final double[] t;
+    private final Point2 cp;
 
     public TestScreen2() {
         shape = new double[0];
         skip = CMath.nBits(1000);
+        segments = new Segments(16);
+        mask = new ExclusionMask(16);
+        t = new double[5];
+        cp = new Point2();
     }
 
     @Override
@@ -26,6 +37,13 @@ public class TestScreen2 extends Game {
             addTestPoint(0.15d, 0.4d);
 
             CMath.set(skip, 4);
+
+            double[] s = shape;
+            segments.clear();
+            for (int si = 1, sl = s.length / 2; si < sl; si++) {
+                if (CMath.has(skip, si)) continue;
+                segments.add(s[si * 2 - 2], s[si * 2 - 1], s[si * 2], s[si * 2 + 1]);
+            }
         }
     }
 
@@ -46,10 +64,8 @@ public class TestScreen2 extends Game {
         double[] s = shape;
         if (s.length <= 4) return;
 
-        long[] skip = this.skip;
-        long[] sp = new long[skip.length];
-        System.arraycopy(skip, 0, sp, 0, skip.length);
-
+        ExclusionMask sp = mask;
+        sp.reset();
 
         int si = 2, sl = s.length;
         double sx = s[0], sy = s[1], ex, ey;
@@ -67,8 +83,9 @@ public class TestScreen2 extends Game {
 
         double hr = 20d;
 
-        double px = cursor.pos.x;
-        double py = cursor.pos.y;
+        Point2 cp = cursor.getPos(this.cp);
+        double px = cp.x;
+        double py = cp.y;
 
         if (cursor.leftPressed) {
             ppx = px;
@@ -83,10 +100,10 @@ public class TestScreen2 extends Game {
         double dx = px - ppx;
         double dy = py - ppy;
 
-        double[] t = new double[5];
+        double[] t = this.t;
         //int i = CMath.distToShape(t, s, skip, px, py, true);
         //CMath.calc(t);
-        int i = CMath.castSphere(t, s, sp, s.length / 2, px, py, dx, dy, Double.MAX_VALUE, hr, true, true);
+        int i = segments.castSphere(t, sp, px, py, dx, dy, Double.MAX_VALUE, hr, true, true);
         if (i < 0) return;
 
         //double hpx = t[3], hpy = t[4];
@@ -4,31 +4,34 @@ import java.awt.*;
 import nmts.game.builder.MazeBuilder;
 import nmts.game.holder.MazeCollider;
 import org.gvoid.engine.Game;
-import org.gvoid.engine.math.CMath;
+import org.gvoid.engine.math.ExclusionMask;
+import org.gvoid.engine.math.Point2;
+import org.gvoid.engine.math.Segments;
 
 public class TestScreen3 extends Game {
-    private double[] shape;
-    private long[] skip;
-    private int len;
+    private Segments shape;
+    private ExclusionMask mask;
+    private final double[] t;
+    private final Point2 cp;
 
     public TestScreen3() {
-        shape = new double[1000];
-        skip = CMath.nBits(1000);
-        len = 0;
+        shape = new Segments(16);
+        mask = new ExclusionMask(16);
+        t = new double[5];
+        cp = new Point2();
     }
 
     @Override
     protected void onUpdate(float deltaTime) {
-        if (len <= 0) {
+        if (shape.size <= 0) {
             int t1 = MazeBuilder.WT | MazeBuilder.WB;
             int t2 = MazeBuilder.WL | MazeBuilder.WR;
 
-            len = MazeCollider.insert(0, 0, 60, t1, shape, skip, len);
-            len = MazeCollider.insert(60, 60, 60, t2, shape, skip, len);
+            MazeCollider.insert(0, 0, 60, t1, shape);
+            MazeCollider.insert(60, 60, 60, t2, shape);
 
-            System.out.println("(" + shape[0] + ", " + shape[1] + ")");
-            for (int i = 0, ai = 2; i <= len; i++, ai += 2) {
-                System.out.println(i + " > " + CMath.has(skip, i) + " (" + shape[ai] + ", " + shape[ai + 1] + ")");
+            for (int i = 0; i < shape.size; i++) {
+                System.out.println(i + " > (" + shape.x1[i] + ", " + shape.y1[i] + ") (" + shape.x2[i] + ", " + shape.y2[i] + ")");
             }
         }
     }
@@ -37,36 +40,23 @@ public class TestScreen3 extends Game {
 
     @Override
     protected void onRender(Graphics2D graphics) {
-        double[] s = shape;
-        if (s.length <= 4) return;
+        Segments s = shape;
+        if (s.size <= 0) return;
 
-        long[] skip = this.skip;
-        long[] sp = new long[skip.length];
-        System.arraycopy(skip, 0, sp, 0, skip.length);
+        ExclusionMask sp = mask;
+        sp.reset();
 
-
-        int si = 2, sl = len;
-        double sx = s[0], sy = s[1], ex, ey;
-        do {
-            int ii = si / 2;
-
-            ex = s[si++];
-            ey = s[si++];
-
-            if (!CMath.has(sp, ii)) {
-                graphics.setColor(Color.BLACK);
-                graphics.setStroke(new BasicStroke());
-                graphics.drawLine((int) sx, (int) sy, (int) ex, (int) ey);
-            }
-
-            sx = ex;
-            sy = ey;
-        } while (si < sl * 2);
+        for (int si = 0, sl = s.size; si < sl; si++) {
+            graphics.setColor(Color.BLACK);
+            graphics.setStroke(new BasicStroke());
+            graphics.drawLine((int) s.x1[si], (int) s.y1[si], (int) s.x2[si], (int) s.y2[si]);
+        }
 
         double hr = 20d;
 
-        double px = cursor.pos.x;
-        double py = cursor.pos.y;
+        Point2 cp = cursor.getPos(this.cp);
+        double px = cp.x;
+        double py = cp.y;
 
         if (cursor.leftPressed) {
             ppx = px;
@@ -81,10 +71,10 @@ public class TestScreen3 extends Game {
         double dx = px - ppx;
         double dy = py - ppy;
 
-        double[] t = new double[5];
+        double[] t = this.t;
         //int i = CMath.distToShape(t, s, skip, px, py, true);
         //CMath.calc(t);
-        int i = CMath.castSphere(t, s, sp, sl, px, py, dx, dy, Double.MAX_VALUE, hr, true, true);
+        int i = s.castSphere(t, sp, px, py, dx, dy, Double.MAX_VALUE, hr, true, true);
         if (i < 0) return;
 
         //double hpx = t[3], hpy = t[4];
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gvoid.engine;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import org.gvoid.engine.interfaces.GameView;
+
+/*
+ * Active rendering counterpart of GamePanel. Updates and frames run on the
+ * loop thread and are drawn straight into the canvas' buffer strategy,
+ * bypassing the RepaintManager and the EDT. Input still arrives on the EDT,
+ * Keys and Cursor guard their state with locks; read cursor positions
+ * through Cursor.getPos rather than the public points.
+ */
+@SuppressWarnings("UnusedReturnValue")
+public class CanvasGamePanel extends Canvas implements GameView {
+    private Game game;
+    private int fps, cps;
+    private int buffers;
+    private boolean antialias;
+
+    private GameLoop loop;
+    private BufferStrategy strategy;
+
+    public CanvasGamePanel() {
+        this(2);
+    }
+
+    public CanvasGamePanel(int buffers) {
+        super();
+        setBuffers(buffers);
+        init();
+    }
+
+    private void init() {
+        try {
+            setFocusable(true);
+            setIgnoreRepaint(true);
+            requestFocus();
+        } catch (Throwable tr) {
+            tr.printStackTrace();
+        }
+
+        fps = -1;
+        cps = -1;
+        antialias = false;
+
+        update();
+    }
+
+    public void cancel() {
+        stopUpdate(true);
+        game = null;
+    }
+
+    @Override
+    public void setGame(Game game) {
+        stopUpdate(true);
+
+        if (this.game != null) {
+            try {
+                this.game.detach();
+            } catch (Throwable tr) {
+                tr.printStackTrace();
+            }
+        }
+        this.game = game;
+        if (this.game != null) {
+            try {
+                this.game.attachTo(this);
+            } catch (Throwable tr) {
+                tr.printStackTrace();
+            }
+        }
+
+        update();
+    }
+
+    @Override
+    public void setFps(int fps) {
+        this.fps = fps;
+        update();
+    }
+
+    @Override
+    public void setCps(int cps) {
+        this.cps = cps;
+        update();
+    }
+
+    public void setBuffers(int buffers) {
+        if (buffers < 2 || buffers > 3) throw new IllegalArgumentException("Buffers must be 2 or 3");
+        if (this.buffers == buffers) return;
+
+        boolean running = loop != null;
+        stopUpdate(true);
+        this.buffers = buffers;
+        strategy = null;
+        if (running) update();
+    }
+
+    @Override
+    public void setAntialias(boolean antialias) {
+        this.antialias = antialias;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        super.setEnabled(enabled);
+        update();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        update();
+    }
+
+    @Override
+    public void removeNotify() {
+        // Called under the tree lock, a frame in flight may need it so don't wait
+        stopUpdate(false);
+        strategy = null;
+        super.removeNotify();
+    }
+
+    private void stopUpdate(boolean wait) {
+        GameLoop loop = this.loop;
+        this.loop = null;
+        if (loop == null) return;
+
+        loop.stop();
+        if (wait && Thread.currentThread() != loop.thread) {
+            try {
+                loop.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean update() {
+        stopUpdate(true);
+        if (game == null || !isEnabled() || !isDisplayable()) {
+            return false;
+        }
+
+        try {
+            loop = new GameLoop("Game-Render", fps, cps) {
+                @Override
+                void tick(boolean update, boolean render) {
+                    CanvasGamePanel.this.tick(update, render);
+                }
+            };
+            loop.start();
+        } catch (Throwable tr) {
+            tr.printStackTrace();
+            loop = null;
+            return false;
+        }
+        return true;
+    }
+
+    private void tick(boolean update, boolean render) {
+        Game game = this.game;
+        if (game == null)
+            return;
+
+        if (update) {
+            onUpdate();
+            game.update();
+        }
+        if (render) render(game);
+    }
+
+    private void render(Game game) {
+        if (!isDisplayable() || getWidth() <= 0 || getHeight() <= 0)
+            return;
+
+        BufferStrategy strategy = this.strategy;
+        if (strategy == null) {
+            this.strategy = strategy = createStrategy();
+            if (strategy == null) return;
+        }
+
+        do {
+            do {
+                Graphics graphics = strategy.getDrawGraphics();
+                try {
+                    draw(game, (Graphics2D) graphics);
+                } finally {
+                    graphics.dispose();
+                }
+            } while (strategy.contentsRestored());
+
+            strategy.show();
+        } while (strategy.contentsLost());
+
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    private BufferStrategy createStrategy() {
+        // Prefer accelerated (VolatileImage) buffers, fall back to whatever the peer offers
+        try {
+            ImageCapabilities accelerated = new ImageCapabilities(true);
+            createBufferStrategy(buffers, new BufferCapabilities(accelerated, accelerated, null));
+        } catch (AWTException e) {
+            createBufferStrategy(buffers);
+        }
+        return getBufferStrategy();
+    }
+
+    private void draw(Game game, Graphics2D graphics) {
+        graphics.setColor(getBackground());
+        graphics.fillRect(0, 0, getWidth(), getHeight());
+
+        try {
+            if (antialias)
+                graphics.setRenderingHint(
+                        RenderingHints.KEY_ANTIALIASING,
+                        RenderingHints.VALUE_ANTIALIAS_ON
+                );
+        } catch (Throwable ignored) {
+        }
+
+        onPreRender(graphics);
+        game.render(graphics);
+        onPostRender(graphics);
+    }
+
+    @Override
+    public void paint(Graphics graphics) {
+    }
+
+    @Override
+    public void update(Graphics graphics) {
+    }
+
+    protected void onUpdate() {
+    }
+    protected void onPreRender(Graphics2D graphics) {
+    }
+    protected void onPostRender(Graphics2D graphics) {
+    }
+}
@@ -34,9 +34,9 @@ public class Cursor implements MouseListener, MouseMotionListener, MouseWheelLis
     public final Point2 absPos;
     public final Point2 pos;
 
-    public boolean leftPressed = false;
-    public boolean middlePressed = false;
-    public boolean rightPressed = false;
+    public volatile boolean leftPressed = false;
+    public volatile boolean middlePressed = false;
+    public volatile boolean rightPressed = false;
 
     private boolean actionSet = false;
     private boolean leftClicked = false;
@@ -83,7 +83,18 @@ public class Cursor implements MouseListener, MouseMotionListener, MouseWheelLis
         component = null;
     }
 
-    public boolean isInBox(double left,
+    /* Copies the positions, events may move them while they are read */
+    public synchronized Point2 getPos(Point2 out) {
+        pos.applyTo(out);
+        return out;
+    }
+
+    public synchronized Point2 getAbsPos(Point2 out) {
+        absPos.applyTo(out);
+        return out;
+    }
+
+    public synchronized boolean isInBox(double left,
                         double top,
                         double right,
                         double bottom) {
@@ -93,7 +104,7 @@ public class Cursor implements MouseListener, MouseMotionListener, MouseWheelLis
                 && pos.y <= bottom;
     }
 
-    public boolean isIn(double x,
+    public synchronized boolean isIn(double x,
                         double y,
                         double width,
                         double height) {
@@ -103,7 +114,7 @@ public class Cursor implements MouseListener, MouseMotionListener, MouseWheelLis
                 && pos.y < y + height;
     }
 
-    public boolean leftClick() {
+    public synchronized boolean leftClick() {
         if (!leftClicked)
             return false;
 
@@ -111,7 +122,7 @@ public class Cursor implements MouseListener, MouseMotionListener, MouseWheelLis
         return true;
     }
 
-    public boolean middleClick() {
+    public synchronized boolean middleClick() {
         if (!middleClicked)
             return false;
 
@@ -119,7 +130,7 @@ public class Cursor implements MouseListener, MouseMotionListener, MouseWheelLis
         return true;
     }
 
-    public boolean rightClick() {
+    public synchronized boolean rightClick() {
         if (!rightClicked)
             return false;
 
@@ -127,19 +138,19 @@ public class Cursor implements MouseListener, MouseMotionListener, MouseWheelLis
         return true;
     }
 
-    public boolean wheelMoved() {
+    public synchronized boolean wheelMoved() {
         boolean moved = wheelMovedBy != 0;
         wheelMovedBy = 0;
         return moved;
     }
 
-    public int wheelMovedBy() {
+    public synchronized int wheelMovedBy() {
         int movedBy = wheelMovedBy;
         wheelMovedBy = 0;
         return movedBy;
     }
 
-    private void setCoordinates(Point point) {
+    private synchronized void setCoordinates(Point point) {
         if (point == null)
             return;
 
@@ -155,12 +166,12 @@ public class Cursor implements MouseListener, MouseMotionListener, MouseWheelLis
         }
     }
 
-    public void handled() {
+    public synchronized void handled() {
         actionSet = false;
         update();
     }
 
-    public void update() {
+    public synchronized void update() {
         leftClicked &= actionSet;
         middleClicked &= actionSet;
         rightClicked &= actionSet;
@@ -179,7 +190,7 @@ public class Cursor implements MouseListener, MouseMotionListener, MouseWheelLis
     }
 
     @Override
-    public void mousePressed(MouseEvent event) {
+    public synchronized void mousePressed(MouseEvent event) {
         if (event.getButton() == (!invertMouse ? MouseEvent.BUTTON1 : MouseEvent.BUTTON3)) {
             this.leftPressed = true;
             this.leftClicked = true;
@@ -211,7 +222,7 @@ public class Cursor implements MouseListener, MouseMotionListener, MouseWheelLis
     }
 
     @Override
-    public void mouseWheelMoved(MouseWheelEvent event) {
+    public synchronized void mouseWheelMoved(MouseWheelEvent event) {
         int wheelRotation = event.getWheelRotation();
         if (wheelRotation != 0) {
             this.wheelMovedBy += wheelRotation;
@@ -38,10 +38,18 @@ public class Game {
     private Component component;
 
     private long lastUpdate;
+    private long lastNanos;
     private float deltaTime;
     private boolean updated;
     private boolean handled;
 
+    private float step;
+    private long stepNanos;
+    private int maxSteps;
+    private long accNanos;
+    private int steps;
+    private float alpha;
+
     public Game() {
         this.transform = this::transform;
 
@@ -62,6 +70,13 @@ public class Game {
         this.deltaTime = -1f;
         this.updated = false;
         this.handled = false;
+
+        this.step = -1f;
+        this.stepNanos = -1L;
+        this.maxSteps = 1;
+        this.accNanos = 0L;
+        this.steps = 0;
+        this.alpha = 1f;
     }
 
     protected final void setOffset(Point2 offset) {
@@ -78,6 +93,21 @@ public class Game {
             this.scale.set(1d, 1d);
     }
 
+    /*
+     * Runs onUpdate in fixed steps of the given length (seconds), at most
+     * maxSteps per update call. Time past the cap is dropped, a step <= 0
+     * goes back to one variable step per update call.
+     */
+    protected final void setFixedStep(float step, int maxSteps) {
+        if (maxSteps < 1) throw new IllegalArgumentException("At least one step required");
+
+        this.step = step;
+        this.stepNanos = step > 0f ? Math.max((long) (step * 1e9d), 1L) : -1L;
+        this.maxSteps = maxSteps;
+        this.accNanos = 0L;
+        this.alpha = 1f;
+    }
+
     protected boolean isAttached() {
         return component != null;
     }
@@ -102,6 +132,7 @@ public class Game {
         this.lastUpdate = -1;
         this.deltaTime = -1f;
         this.updated = false;
+        this.accNanos = 0L;
     }
 
     public final void attachTo(Component component) {
@@ -117,6 +148,7 @@ public class Game {
         this.lastUpdate = -1;
         this.deltaTime = -1f;
         this.updated = false;
+        this.accNanos = 0L;
 
         try {
             if (this.component != null)
@@ -172,10 +204,10 @@ public class Game {
 
         updateSize();
 
-        long time = System.currentTimeMillis();
-        long delta = lastUpdate >= 0L ? Math.max(time - lastUpdate, 0L) : 0L;
-        deltaTime = (float) delta / 1000f;
-        lastUpdate = time;
+        long now = System.nanoTime();
+        long delta = lastUpdate >= 0L ? Math.max(now - lastNanos, 0L) : 0L;
+        lastUpdate = System.currentTimeMillis();
+        lastNanos = now;
 
         if (!handled) {
             try {
@@ -187,13 +219,39 @@ public class Game {
             handled = true;
         }
 
-        try {
-            onUpdate(deltaTime);
-        } catch (Throwable tr) {
-            tr.printStackTrace();
-        } finally {
-            updated = true;
+        long sn = stepNanos;
+        if (sn <= 0L) {
+            deltaTime = (float) (delta / 1e9d);
+            steps = 1;
+            alpha = 1f;
+            try {
+                onUpdate(deltaTime);
+            } catch (Throwable tr) {
+                tr.printStackTrace();
+            } finally {
+                updated = true;
+            }
+            return;
         }
+
+        deltaTime = step;
+        accNanos += delta;
+
+        int n = 0;
+        for (; accNanos >= sn && n < maxSteps; n++) {
+            accNanos -= sn;
+            try {
+                onUpdate(deltaTime);
+            } catch (Throwable tr) {
+                tr.printStackTrace();
+            }
+        }
+        // Behind by more than the cap, drop the backlog instead of catching up
+        if (n >= maxSteps) accNanos = Math.min(accNanos, sn - 1L);
+
+        steps = n;
+        alpha = (float) accNanos / (float) sn;
+        if (n > 0) updated = true;
     }
 
     public final void render(Graphics2D graphics) {
@@ -227,7 +285,7 @@ public class Game {
                 graphics.scale(1d / scale.x * zoom, 1d / scale.y * zoom);
 
                 try {
-                    onRender(graphics);
+                    onRender(graphics, alpha);
                 } catch (Throwable tr) {
                     tr.printStackTrace();
                 }
@@ -269,12 +327,24 @@ public class Game {
         return deltaTime;
     }
 
+    public final int getSteps() {
+        return steps;
+    }
+
+    public final float getAlpha() {
+        return alpha;
+    }
+
     protected void onResize(Point2 newSize) {
     }
 
     protected void onUpdate(float deltaTime) {
     }
 
+    protected void onRender(Graphics2D graphics, float alpha) {
+        onRender(graphics);
+    }
+
     protected void onRender(Graphics2D graphics) {
     }
 
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gvoid.engine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Paces updates and frames on its own thread against System.nanoTime()
+ * deadlines. Missed deadlines are skipped instead of replayed, an uncapped
+ * rate (<= 0) follows the other one and with both uncapped every pass ticks.
+ */
+abstract class GameLoop implements Runnable {
+    final Thread thread;
+    final long updatePeriod, framePeriod;
+    private volatile boolean running;
+
+    GameLoop(String name, int fps, int cps) {
+        this.framePeriod = fps > 0 ? TimeUnit.SECONDS.toNanos(1L) / fps : 0L;
+        this.updatePeriod = cps > 0 ? TimeUnit.SECONDS.toNanos(1L) / cps : 0L;
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        running = true;
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    abstract void tick(boolean update, boolean render);
+
+    @Override
+    public void run() {
+        long nextUpdate = System.nanoTime(), nextFrame = nextUpdate;
+        while (running) {
+            long now = System.nanoTime();
+            boolean frame = framePeriod <= 0L || now - nextFrame >= 0L;
+            boolean update = updatePeriod > 0L ? now - nextUpdate >= 0L : frame;
+            boolean render = framePeriod > 0L ? frame : update;
+
+            if (update || render) {
+                if (update) nextUpdate = next(nextUpdate, updatePeriod, now);
+                if (render) nextFrame = next(nextFrame, framePeriod, now);
+
+                try {
+                    tick(update, render);
+                } catch (Throwable tr) {
+                    tr.printStackTrace();
+                }
+                continue;
+            }
+
+            long wait = Long.MAX_VALUE;
+            if (updatePeriod > 0L) wait = nextUpdate - now;
+            if (framePeriod > 0L) wait = Math.min(wait, nextFrame - now);
+            LockSupport.parkNanos(this, wait);
+        }
+    }
+
+    private static long next(long last, long period, long now) {
+        long next = last + period;
+        return now - next > period ? now + period : next;
+    }
+}
@@ -17,16 +17,17 @@
 package org.gvoid.engine;
 
 import java.awt.*;
+import java.util.concurrent.locks.LockSupport;
 import javax.swing.*;
+import org.gvoid.engine.interfaces.GameView;
 
 @SuppressWarnings("UnusedReturnValue")
-public class GamePanel extends JPanel {
+public class GamePanel extends JPanel implements GameView {
     private Game game;
-    private int cps;
+    private int fps, cps;
     private boolean antialias;
 
-    private Timer updateTimer;
-    private Timer paintTimer;
+    private Loop loop;
 
     public GamePanel(LayoutManager layout, boolean isDoubleBuffered) {
         super(layout, isDoubleBuffered);
@@ -56,6 +57,7 @@ public class GamePanel extends JPanel {
             tr.printStackTrace();
         }
 
+        fps = -1;
         cps = -1;
         antialias = false;
 
@@ -67,6 +69,7 @@ public class GamePanel extends JPanel {
         stopUpdate();
     }
 
+    @Override
     public void setGame(Game game) {
         if (this.game != null) {
             try {
@@ -87,11 +90,19 @@ public class GamePanel extends JPanel {
         update();
     }
 
+    @Override
+    public void setFps(int fps) {
+        this.fps = fps;
+        update();
+    }
+
+    @Override
     public void setCps(int cps) {
         this.cps = cps;
         update();
     }
 
+    @Override
     public void setAntialias(boolean antialias) {
         this.antialias = antialias;
     }
@@ -103,20 +114,9 @@ public class GamePanel extends JPanel {
     }
 
     private void stopUpdate() {
-        try {
-            if (updateTimer != null)
-                updateTimer.stop();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        try {
-            if (paintTimer != null)
-                paintTimer.stop();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        updateTimer = null;
-        paintTimer = null;
+        Loop loop = this.loop;
+        this.loop = null;
+        if (loop != null) loop.stop();
     }
 
     public boolean update() {
@@ -125,36 +125,14 @@ public class GamePanel extends JPanel {
             return false;
         }
 
-        updateTimer = new Timer(1000 / cps, e -> {
-            try {
-                Game game = GamePanel.this.game;
-                if (game == null) {
-                    stopUpdate();
-                    return;
-                }
-
-                onUpdate();
-                game.update();
-            } catch (Throwable tr) {
-                tr.printStackTrace();
-            }
-        });
-        paintTimer = new Timer(5000, e -> {
-            try {
-                repaint();
-            } catch (Exception ex) {
-                ex.printStackTrace();
-            }
-        });
-
-        updateTimer.setCoalesce(true);
-        paintTimer.setCoalesce(true);
-
-        updateTimer.setRepeats(true);
-        paintTimer.setRepeats(true);
-
-        updateTimer.start();
-        paintTimer.start();
+        try {
+            loop = new Loop(fps, cps);
+            loop.start();
+        } catch (Throwable tr) {
+            tr.printStackTrace();
+            loop = null;
+            return false;
+        }
 
         try {
             repaint();
@@ -163,60 +141,54 @@ public class GamePanel extends JPanel {
         }
 
         return true;
+    }
 
-        /*
-        Timer timer = this.timer;
-        if (game != null && timer == null) {
-            try {
-                this.timer = timer = new Timer(true);
-            } catch (Throwable tr) {
-                tr.printStackTrace();
+    private void tick(Loop loop, boolean update, boolean render) {
+        try {
+            if (this.loop != loop)
+                return;
+
+            Game game = this.game;
+            if (game == null) {
+                stopUpdate();
+                return;
             }
-        }
 
-        if (game == null || cps <= 0 || timer == null || !isEnabled()) {
-            this.timer = null;
-            try {
-                if (timer != null) {
-                    timer.cancel();
-                }
-            } catch (Throwable tr) {
-                tr.printStackTrace();
+            if (update) {
+                onUpdate();
+                game.update();
             }
-            return false;
+            if (render && isShowing()) {
+                paintImmediately(0, 0, getWidth(), getHeight());
+            }
+        } catch (Throwable tr) {
+            tr.printStackTrace();
+        } finally {
+            loop.done();
         }
+    }
 
-        try {
-            updateTask = new TimerTask() {
-                @Override
-                public void run() {
-                    try {
-                        Game game = GamePanel.this.game;
-                        if (game == null) {
-                            stopUpdate();
-                            return;
-                        }
+    /* Hands every tick to the EDT and waits for it before pacing the next */
+    private final class Loop extends GameLoop {
+        private volatile boolean pending;
 
-                        onUpdate();
-                        game.update();
-                    } catch (Throwable tr) {
-                        tr.printStackTrace();
-                    }
-                }
-            };
-            timer.schedule(updateTask, 50L, 1000L / cps);
+        Loop(int fps, int cps) {
+            super("Game-Loop", fps, cps);
+        }
 
-            try {
-                repaint();
-            } catch (Throwable tr) {
-                tr.printStackTrace();
+        void done() {
+            pending = false;
+            LockSupport.unpark(thread);
+        }
+
+        @Override
+        void tick(boolean update, boolean render) {
+            pending = true;
+            SwingUtilities.invokeLater(() -> GamePanel.this.tick(this, update, render));
+            while (pending && isRunning()) {
+                LockSupport.park(this);
             }
-            return true;
-        } catch (Throwable tr) {
-            tr.printStackTrace();
-            return false;
         }
-        */
     }
 
     @Override
@@ -234,12 +206,6 @@ public class GamePanel extends JPanel {
             tr.printStackTrace();
         }
 
-        try {
-            repaint();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
         if (graphics == null) return;
         if (!(graphics instanceof Graphics2D)) return;
 
@@ -23,6 +23,10 @@ public class CMath {
         return n < mi ? mi : Math.min(ma, n);
     }
 
+    public static float clamp(float n, float mi, float ma) {
+        return n < mi ? mi : Math.min(ma, n);
+    }
+
     public static int castRay(double[] t, double[] s, long[] es, int sl, double px, double py, double dx, double dy, double d, boolean clamp) {
         return castSphere(t, s, es, sl, px, py, dx, dy, d, 0d, clamp, false);
     }
@@ -36,8 +40,6 @@ public class CMath {
     }
 
     public static int castSphere(double[] t, double[] s, long[] es, int sl, double px, double py, double dx, double dy, double d, double r, boolean clamp, boolean exc) {
-        double pc = PRECISION;
-
         double dl = dx * dx + dy * dy;
         if (dl == 0d) return -1;
         else if (dl != 1d) {
@@ -46,27 +48,162 @@ public class CMath {
             dy /= dl;
         }
 
-        double rd = d, hd, cd;
-        double cx = px, cy = py;
-        int hi;
-        for (;; rd -= hd) {
-            cd = rd * rd + 0.0001d;
-            hi = distToShape(t, s, es, sl,
-                             cx, cy, dx, dy, cd,
-                             clamp, exc);
-            if (hi == -1) break;
-            hd = Math.pow(t[2], 0.5d) - r;
-            if (hd > rd) break;
-            if (hd <= pc) {
-                t[0] = cx;
-                t[1] = cy;
-                t[2] = d - rd;
-                return hi;
+        boolean ca = es != null;
+        exc &= ca;
+        double rr = r + PRECISION, hd = d, hx = 0d, hy = 0d, ts;
+        double sx = s[0], sy = s[1], ex, ey;
+        int si = 1, hi = -1, ai = 2;
+        do {
+            ex = s[ai++];
+            ey = s[ai++];
+            calc: {
+                if (ca && has(es, si)) break calc;
+                ts = sweep(t, sx, sy, ex, ey, px, py, dx, dy, rr, clamp);
+                if (ts == BEHIND) {
+                    if (exc) set(es, si);
+                    break calc;
+                }
+                if (ts < 0d || ts > hd) break calc;
+                hd = ts;
+                hi = si;
+                hx = t[3];
+                hy = t[4];
             }
-            cx += dx * hd;
-            cy += dy * hd;
+            sx = ex;
+            sy = ey;
+        } while (++si < sl);
+
+        if (hi < 0) return -1;
+        t[0] = px + dx * hd;
+        t[1] = py + dy * hd;
+        t[2] = hd;
+        t[3] = hx;
+        t[4] = hy;
+        return hi;
+    }
+
+    public static final double BEHIND = -2d;
+
+    /*
+     * Distance a circle of radius r travels from p along the unit vector d
+     * until it touches segment a-b, writing the contact point to t[3..4].
+     * Returns -1 on a miss and BEHIND if the closest point lies behind the
+     * circle, in which case the distance can only grow.
+     */
+    public static double sweep(double[] t, double ax, double ay, double bx, double by, double px, double py, double dx, double dy, double r, boolean clamp) {
+        double ux = bx - ax, uy = by - ay;
+        double ps = projScale(ux, uy, px - ax, py - ay);
+        if (clamp) ps = clamp(ps, 0d, 1d);
+        double qx = ax + ux * ps, qy = ay + uy * ps;
+        double vx = qx - px, vy = qy - py;
+        if (vx * dx + vy * dy < 0d) return BEHIND;
+
+        double r2 = r * r;
+        if (vx * vx + vy * vy <= r2) {
+            t[3] = qx;
+            t[4] = qy;
+            return 0d;
         }
-        return -1;
+
+        double hd = -1d;
+        double ul = ux * ux + uy * uy;
+        if (ul > 0d) {
+            ul = Math.pow(ul, 0.5d);
+            double nx = -uy / ul, ny = ux / ul;
+            double h = (px - ax) * nx + (py - ay) * ny;
+            if (h < 0d) {
+                nx = -nx;
+                ny = -ny;
+                h = -h;
+            }
+            double vn = dx * nx + dy * ny;
+            if (vn < 0d && h >= r) {
+                double ts = (h - r) / -vn;
+                double cx = px + dx * ts - nx * r, cy = py + dy * ts - ny * r;
+                double cs = projScale(ux, uy, cx - ax, cy - ay);
+                if (!clamp || cs >= 0d && cs <= 1d) {
+                    hd = ts;
+                    t[3] = cx;
+                    t[4] = cy;
+                }
+            }
+        }
+        if (!clamp) return hd;
+
+        hd = sweepPoint(t, ax, ay, px, py, dx, dy, r2, hd);
+        hd = sweepPoint(t, bx, by, px, py, dx, dy, r2, hd);
+        return hd;
+    }
+
+    private static double sweepPoint(double[] t, double ex, double ey, double px, double py, double dx, double dy, double r2, double hd) {
+        double mx = px - ex, my = py - ey;
+        double b = mx * dx + my * dy;
+        if (b >= 0d) return hd;
+        double dc = b * b - (mx * mx + my * my - r2);
+        if (dc < 0d) return hd;
+        double ts = Math.max(-b - Math.pow(dc, 0.5d), 0d);
+        if (hd >= 0d && ts >= hd) return hd;
+        t[3] = ex;
+        t[4] = ey;
+        return ts;
+    }
+
+    public static float sweep(float[] t, float ax, float ay, float bx, float by, float px, float py, float dx, float dy, float r, boolean clamp) {
+        float ux = bx - ax, uy = by - ay;
+        float ps = projScale(ux, uy, px - ax, py - ay);
+        if (clamp) ps = clamp(ps, 0f, 1f);
+        float qx = ax + ux * ps, qy = ay + uy * ps;
+        float vx = qx - px, vy = qy - py;
+        if (vx * dx + vy * dy < 0f) return (float) BEHIND;
+
+        float r2 = r * r;
+        if (vx * vx + vy * vy <= r2) {
+            t[3] = qx;
+            t[4] = qy;
+            return 0f;
+        }
+
+        float hd = -1f;
+        float ul = ux * ux + uy * uy;
+        if (ul > 0f) {
+            ul = (float) Math.pow(ul, 0.5d);
+            float nx = -uy / ul, ny = ux / ul;
+            float h = (px - ax) * nx + (py - ay) * ny;
+            if (h < 0f) {
+                nx = -nx;
+                ny = -ny;
+                h = -h;
+            }
+            float vn = dx * nx + dy * ny;
+            if (vn < 0f && h >= r) {
+                float ts = (h - r) / -vn;
+                float cx = px + dx * ts - nx * r, cy = py + dy * ts - ny * r;
+                float cs = projScale(ux, uy, cx - ax, cy - ay);
+                if (!clamp || cs >= 0f && cs <= 1f) {
+                    hd = ts;
+                    t[3] = cx;
+                    t[4] = cy;
+                }
+            }
+        }
+        if (!clamp) return hd;
+
+        hd = sweepPoint(t, ax, ay, px, py, dx, dy, r2, hd);
+        hd = sweepPoint(t, bx, by, px, py, dx, dy, r2, hd);
+        return hd;
+    }
+
+    private static float sweepPoint(float[] t, float ex, float ey, float px, float py, float dx, float dy, float r2, float hd) {
+        float mx = px - ex, my = py - ey;
+        float b = mx * dx + my * dy;
+        if (b >= 0f) return hd;
+        float dc = b * b - (mx * mx + my * my - r2);
+        if (dc < 0f) return hd;
+        float ts = Math.max(-b - (float) Math.pow(dc, 0.5d), 0f);
+        if (hd >= 0f && ts >= hd) return hd;
+        t[3] = ex;
+        t[4] = ey;
+        return ts;
     }
 
     public static void calc(double[] t) {
@@ -155,6 +292,12 @@ public class CMath {
         return (v1x * v2x + v1y * v2y) / ds;
     }
 
+    public static float projScale(float v1x, float v1y, float v2x, float v2y) {
+        float ds = v1x * v1x + v1y * v1y;
+        if (ds == 0f) return 0f;
+        return (v1x * v2x + v1y * v2y) / ds;
+    }
+
     public static void cBits(long[] bits) {
         for (int i = 0, l = bits.length; i < l; i++) {
             bits[i] = 0L;
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gvoid.engine.math;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Structure of arrays for casting many spheres at once. Each cast moves a
+ * sphere of radius r from (px, py) by (dx, dy). Results land in hit (the
+ * segment index or -1), the center at contact (cx, cy), the distance
+ * traveled and the contact point (hx, hy). A miss travels the full motion
+ * and reports NaN as contact point.
+ */
+public class CastBatch {
+    public static int SPLIT = 256;
+
+    public final int capacity;
+    public final double[] px, py, dx, dy, r;
+    public final int[] hit;
+    public final double[] cx, cy, dist, hx, hy;
+    public int size;
+
+    private final double[] t;
+
+    public CastBatch(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+
+        this.capacity = capacity;
+        px = new double[capacity];
+        py = new double[capacity];
+        dx = new double[capacity];
+        dy = new double[capacity];
+        r = new double[capacity];
+        hit = new int[capacity];
+        cx = new double[capacity];
+        cy = new double[capacity];
+        dist = new double[capacity];
+        hx = new double[capacity];
+        hy = new double[capacity];
+        t = new double[5];
+    }
+
+    public void set(int i, double px, double py, double dx, double dy, double r) {
+        this.px[i] = px;
+        this.py[i] = py;
+        this.dx[i] = dx;
+        this.dy[i] = dy;
+        this.r[i] = r;
+    }
+
+    public void cast(Segments seg, boolean clamp, boolean parallel) {
+        cast(seg, null, clamp, parallel);
+    }
+
+    public void cast(SegmentGrid index, boolean clamp, boolean parallel) {
+        cast(null, index, clamp, parallel);
+    }
+
+    private void cast(Segments seg, SegmentGrid index, boolean clamp, boolean parallel) {
+        if (size < 0 || size > capacity) {
+            throw new IllegalStateException("Invalid size");
+        }
+        if (parallel && size > SPLIT) {
+            ForkJoinPool.commonPool().invoke(new Cast(this, seg, index, clamp, 0, size));
+        } else cast(t, seg, index, clamp, 0, size);
+    }
+
+    private void cast(double[] t, Segments seg, SegmentGrid index, boolean clamp, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double px = this.px[i], py = this.py[i];
+            double dx = this.dx[i], dy = this.dy[i];
+            double d = Math.pow(dx * dx + dy * dy, 0.5d);
+            int hi = d == 0d ? -1 : index != null
+                     ? index.castSphere(t, null, px, py, dx, dy, d, r[i], clamp, false)
+                     : seg.castSphere(t, null, px, py, dx, dy, d, r[i], clamp, false);
+            hit[i] = hi;
+            if (hi >= 0) {
+                cx[i] = t[0];
+                cy[i] = t[1];
+                dist[i] = t[2];
+                hx[i] = t[3];
+                hy[i] = t[4];
+            } else {
+                cx[i] = px + dx;
+                cy[i] = py + dy;
+                dist[i] = d;
+                hx[i] = hy[i] = Double.NaN;
+            }
+        }
+    }
+
+    private static final class Cast extends RecursiveAction {
+        private final CastBatch b;
+        private final Segments seg;
+        private final SegmentGrid index;
+        private final boolean clamp;
+        private final int from, to;
+
+        Cast(CastBatch b, Segments seg, SegmentGrid index, boolean clamp, int from, int to) {
+            this.b = b;
+            this.seg = seg;
+            this.index = index;
+            this.clamp = clamp;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Cast(b, seg, index, clamp, from, mid),
+                          new Cast(b, seg, index, clamp, mid, to));
+            } else b.cast(new double[5], seg, index, clamp, from, to);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gvoid.engine.math;
+
+/*
+ * Nearest segment search over segments stored as separate start and end
+ * coordinate arrays. Follows CMath.distToShape: segments further than d
+ * (squared) or, with a direction, behind the point are ignored and ties go
+ * to the later segment. The vector implementation needs the incubating
+ * vector module (--add-modules jdk.incubator.vector) and is used when it
+ * can be loaded, unless disabled with -Dgvoid.simd=false or setVector().
+ */
+public abstract class DistKernel {
+    public static final DistKernel SCALAR = new ScalarDistKernel();
+    public static final DistKernel VECTOR = load();
+
+    private static volatile DistKernel current =
+            VECTOR != null && !"false".equals(System.getProperty("gvoid.simd")) ? VECTOR : SCALAR;
+
+    private static DistKernel load() {
+        try {
+            return (DistKernel) Class.forName("org.gvoid.engine.math.VectorDistKernel")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    public static DistKernel get() {
+        return current;
+    }
+
+    public static boolean isVectorAvailable() {
+        return VECTOR != null;
+    }
+
+    public static boolean setVector(boolean vector) {
+        current = vector && VECTOR != null ? VECTOR : SCALAR;
+        return current == VECTOR;
+    }
+
+    public abstract int nearest(double[] t, double[] ax, double[] ay, double[] bx, double[] by, int from, int to,
+                                double px, double py, double dx, double dy, double d, boolean clamp);
+
+    protected static void write(double[] t, double[] ax, double[] ay, double[] bx, double[] by, int i,
+                                double px, double py, boolean clamp) {
+        double sx = ax[i], sy = ay[i];
+        double v1x = bx[i] - sx, v1y = by[i] - sy;
+        double v2x = px - sx, v2y = py - sy;
+        double ps = CMath.projScale(v1x, v1y, v2x, v2y);
+        if (clamp) ps = CMath.clamp(ps, 0d, 1d);
+        double tx = v1x * ps, ty = v1y * ps;
+        double dtx = tx - v2x, dty = ty - v2y;
+        t[3] = tx + sx;
+        t[4] = ty + sy;
+        t[2] = dtx * dtx + dty * dty;
+        t[0] = dtx;
+        t[1] = dty;
+    }
+
+    private static final class ScalarDistKernel extends DistKernel {
+        @Override
+        public int nearest(double[] t, double[] ax, double[] ay, double[] bx, double[] by, int from, int to,
+                           double px, double py, double dx, double dy, double d, boolean clamp) {
+            boolean cd = dx != 0d || dy != 0d;
+            int fi = -1;
+            for (int i = from; i < to; i++) {
+                double sx = ax[i], sy = ay[i];
+                double v1x = bx[i] - sx, v1y = by[i] - sy;
+                double v2x = px - sx, v2y = py - sy;
+                double ps = CMath.projScale(v1x, v1y, v2x, v2y);
+                if (clamp) ps = CMath.clamp(ps, 0d, 1d);
+                double dtx = v1x * ps - v2x, dty = v1y * ps - v2y;
+                double dtl = dtx * dtx + dty * dty;
+                if (dtl > d) continue;
+                if (cd && dtx * dx + dty * dy < 0d) continue;
+                d = dtl;
+                fi = i;
+            }
+            if (fi >= 0) write(t, ax, ay, bx, by, fi, px, py, clamp);
+            return fi;
+        }
+    }
+}
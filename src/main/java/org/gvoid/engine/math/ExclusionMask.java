@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gvoid.engine.math;
+
+import java.util.Arrays;
+
+/*
+ * Reusable set of excluded segments. Every entry stores the epoch it was
+ * excluded in, so starting a new query only bumps the epoch instead of
+ * clearing or copying the whole set.
+ */
+public class ExclusionMask {
+    private int[] stamps;
+    private int epoch;
+
+    public ExclusionMask(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+
+        stamps = new int[capacity];
+        epoch = 1;
+    }
+
+    public int capacity() {
+        return stamps.length;
+    }
+
+    public void ensure(int size) {
+        int l = stamps.length;
+        if (size > l) stamps = Arrays.copyOf(stamps, Math.max(size, l * 2));
+    }
+
+    public void reset() {
+        if (++epoch == 0) {
+            // Wrapped around, old stamps could match again
+            Arrays.fill(stamps, 0);
+            epoch = 1;
+        }
+    }
+
+    public void exclude(int i) {
+        stamps[i] = epoch;
+    }
+
+    public boolean excluded(int i) {
+        return stamps[i] == epoch;
+    }
+}
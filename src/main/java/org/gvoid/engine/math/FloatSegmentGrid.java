@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gvoid.engine.math;
+
+import java.util.Arrays;
+
+/*
+ * Float copy of a SegmentGrid for sphere casts of callers that already work
+ * in float.
+ * The segment ends are stored once per cell entry as float, which halves
+ * the memory a query streams through and needs no conversion of the
+ * results. Coordinates keep float precision, so the grid is meant for
+ * values like maze coordinates, not for wide world spaces.
+ */
+public class FloatSegmentGrid {
+    private float ox, oy, inv;
+    private int gw, gh;
+    private int[] cells, items;
+    private float[] ax, ay, bx, by;
+    private int il, sl;
+
+    public FloatSegmentGrid() {
+        cells = new int[1];
+        items = new int[0];
+        ax = ay = bx = by = new float[0];
+    }
+
+    public int size() {
+        return il;
+    }
+
+    public void build(Segments seg, float cellSize) {
+        this.inv = 1f / cellSize;
+
+        double[] x1 = seg.x1, y1 = seg.y1, x2 = seg.x2, y2 = seg.y2;
+        int sl = this.sl = seg.size;
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < sl; i++) {
+            minX = Math.min(minX, (float) Math.min(x1[i], x2[i]));
+            minY = Math.min(minY, (float) Math.min(y1[i], y2[i]));
+            maxX = Math.max(maxX, (float) Math.max(x1[i], x2[i]));
+            maxY = Math.max(maxY, (float) Math.max(y1[i], y2[i]));
+        }
+        if (sl < 1) minX = minY = maxX = maxY = 0f;
+
+        ox = minX;
+        oy = minY;
+        gw = (int) ((maxX - minX) * inv) + 1;
+        gh = (int) ((maxY - minY) * inv) + 1;
+
+        int cl = gw * gh + 1;
+        if (cells.length < cl) cells = new int[cl];
+        int[] cells = this.cells;
+        Arrays.fill(cells, 0, cl, 0);
+
+        // Same counting layout as SegmentGrid
+        for (int i = 0; i < sl; i++) {
+            int cx0 = cx((float) Math.min(x1[i], x2[i])), cx1 = cx((float) Math.max(x1[i], x2[i]));
+            int cy0 = cy((float) Math.min(y1[i], y2[i])), cy1 = cy((float) Math.max(y1[i], y2[i]));
+            for (int y = cy0; y <= cy1; y++) {
+                for (int x = cx0; x <= cx1; x++) {
+                    cells[y * gw + x + 1]++;
+                }
+            }
+        }
+        for (int i = 1; i < cl; i++) {
+            cells[i] += cells[i - 1];
+        }
+        il = cells[cl - 1];
+        if (items.length < il) {
+            items = new int[il];
+            ax = new float[il];
+            ay = new float[il];
+            bx = new float[il];
+            by = new float[il];
+        }
+        int[] items = this.items;
+        float[] ax = this.ax, ay = this.ay, bx = this.bx, by = this.by;
+        for (int i = sl - 1; i >= 0; i--) {
+            int cx0 = cx((float) Math.min(x1[i], x2[i])), cx1 = cx((float) Math.max(x1[i], x2[i]));
+            int cy0 = cy((float) Math.min(y1[i], y2[i])), cy1 = cy((float) Math.max(y1[i], y2[i]));
+            for (int y = cy0; y <= cy1; y++) {
+                for (int x = cx0; x <= cx1; x++) {
+                    int k = --cells[y * gw + x + 1];
+                    items[k] = i;
+                    ax[k] = (float) x1[i];
+                    ay[k] = (float) y1[i];
+                    bx[k] = (float) x2[i];
+                    by[k] = (float) y2[i];
+                }
+            }
+        }
+        System.arraycopy(cells, 1, cells, 0, cl - 1);
+        cells[cl - 1] = il;
+    }
+
+    private int cx(float x) {
+        return Maths.clamp((int) Math.floor((x - ox) * inv), 0, gw - 1);
+    }
+
+    private int cy(float y) {
+        return Maths.clamp((int) Math.floor((y - oy) * inv), 0, gh - 1);
+    }
+
+    public int castSphere(float[] t, ExclusionMask ex, float px, float py, float dx, float dy, float d, float r, boolean clamp, boolean exc) {
+        if (il == 0) return -1;
+        float dl = dx * dx + dy * dy;
+        if (dl == 0f) return -1;
+        else if (dl != 1f) {
+            dl = (float) Math.pow(dl, 0.5d);
+            dx /= dl;
+            dy /= dl;
+        }
+
+        float rr = r + (float) CMath.PRECISION;
+        float qx = px + dx * d, qy = py + dy * d;
+        int x0 = cx(Math.min(px, qx) - rr), x1 = cx(Math.max(px, qx) + rr);
+        int y0 = cy(Math.min(py, qy) - rr), y1 = cy(Math.max(py, qy) + rr);
+
+        float[] ax = this.ax, ay = this.ay, bx = this.bx, by = this.by;
+        int[] cells = this.cells, items = this.items;
+        boolean ca = ex != null;
+        exc &= ca;
+        if (ca) ex.ensure(sl);
+        float hd = d, hx = 0f, hy = 0f;
+        int hi = -1;
+        for (int y = y0; y <= y1; y++) {
+            for (int k = cells[y * gw + x0], kl = cells[y * gw + x1 + 1]; k < kl; k++) {
+                int si = items[k];
+                if (ca && ex.excluded(si)) continue;
+                float ts = CMath.sweep(t, ax[k], ay[k], bx[k], by[k], px, py, dx, dy, rr, clamp);
+                if (ts == (float) CMath.BEHIND) {
+                    if (exc) ex.exclude(si);
+                    continue;
+                }
+                if (ts < 0f || ts > hd) continue;
+                hd = ts;
+                hi = si;
+                hx = t[3];
+                hy = t[4];
+            }
+        }
+
+        if (hi < 0) return -1;
+        t[0] = px + dx * hd;
+        t[1] = py + dy * hd;
+        t[2] = hd;
+        t[3] = hx;
+        t[4] = hy;
+        return hi;
+    }
+}
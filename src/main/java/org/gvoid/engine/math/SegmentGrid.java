@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gvoid.engine.math;
+
+import java.util.Arrays;
+
+/*
+ * Uniform grid over a Segments store. Every cell lists the segments whose
+ * bounds touch it, so distance queries and sphere casts only visit the
+ * cells around the query point. A segment spanning several cells may be
+ * visited more than once per query, which does not change results. The
+ * segment ends are copied in cell order, so the cells of a row are one
+ * contiguous run for the DistKernel.
+ */
+public class SegmentGrid {
+    private double ox, oy, cs, inv;
+    private int gw, gh;
+    private int[] cells, items;
+    private double[] ax, ay, bx, by;
+    private int il, sl;
+
+    public SegmentGrid() {
+        cells = new int[1];
+        items = new int[0];
+        ax = ay = bx = by = new double[0];
+    }
+
+    public int size() {
+        return il;
+    }
+
+    public void build(Segments seg, double cellSize) {
+        this.cs = cellSize;
+        this.inv = 1d / cellSize;
+
+        double[] x1 = seg.x1, y1 = seg.y1, x2 = seg.x2, y2 = seg.y2;
+        int sl = this.sl = seg.size;
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < sl; i++) {
+            minX = Math.min(minX, Math.min(x1[i], x2[i]));
+            minY = Math.min(minY, Math.min(y1[i], y2[i]));
+            maxX = Math.max(maxX, Math.max(x1[i], x2[i]));
+            maxY = Math.max(maxY, Math.max(y1[i], y2[i]));
+        }
+        if (sl < 1) minX = minY = maxX = maxY = 0d;
+
+        ox = minX;
+        oy = minY;
+        gw = (int) ((maxX - minX) * inv) + 1;
+        gh = (int) ((maxY - minY) * inv) + 1;
+
+        int cl = gw * gh + 1;
+        if (cells.length < cl) cells = new int[cl];
+        int[] cells = this.cells;
+        Arrays.fill(cells, 0, cl, 0);
+
+        // Count per cell, then prefix sums, then fill back to front
+        for (int i = 0; i < sl; i++) {
+            int cx0 = cx(Math.min(x1[i], x2[i])), cx1 = cx(Math.max(x1[i], x2[i]));
+            int cy0 = cy(Math.min(y1[i], y2[i])), cy1 = cy(Math.max(y1[i], y2[i]));
+            for (int y = cy0; y <= cy1; y++) {
+                for (int x = cx0; x <= cx1; x++) {
+                    cells[y * gw + x + 1]++;
+                }
+            }
+        }
+        for (int i = 1; i < cl; i++) {
+            cells[i] += cells[i - 1];
+        }
+        il = cells[cl - 1];
+        if (items.length < il) {
+            items = new int[il];
+            ax = new double[il];
+            ay = new double[il];
+            bx = new double[il];
+            by = new double[il];
+        }
+        int[] items = this.items;
+        double[] ax = this.ax, ay = this.ay, bx = this.bx, by = this.by;
+        for (int i = sl - 1; i >= 0; i--) {
+            int cx0 = cx(Math.min(x1[i], x2[i])), cx1 = cx(Math.max(x1[i], x2[i]));
+            int cy0 = cy(Math.min(y1[i], y2[i])), cy1 = cy(Math.max(y1[i], y2[i]));
+            for (int y = cy0; y <= cy1; y++) {
+                for (int x = cx0; x <= cx1; x++) {
+                    int k = --cells[y * gw + x + 1];
+                    items[k] = i;
+                    ax[k] = x1[i];
+                    ay[k] = y1[i];
+                    bx[k] = x2[i];
+                    by[k] = y2[i];
+                }
+            }
+        }
+        // Filling moved every start back by one cell, shift them into place
+        System.arraycopy(cells, 1, cells, 0, cl - 1);
+        cells[cl - 1] = il;
+    }
+
+    private int cx(double x) {
+        return Maths.clamp((int) Math.floor((x - ox) * inv), 0, gw - 1);
+    }
+
+    private int cy(double y) {
+        return Maths.clamp((int) Math.floor((y - oy) * inv), 0, gh - 1);
+    }
+
+    public int castSphere(double[] t, ExclusionMask ex, double px, double py, double dx, double dy, double d, double r, boolean clamp, boolean exc) {
+        if (il == 0) return -1;
+        double dl = dx * dx + dy * dy;
+        if (dl == 0d) return -1;
+        else if (dl != 1d) {
+            dl = Math.pow(dl, 0.5d);
+            dx /= dl;
+            dy /= dl;
+        }
+
+        // Cells covered by the bounds of the swept circle
+        double rr = r + CMath.PRECISION;
+        double qx = px + dx * d, qy = py + dy * d;
+        int x0 = cx(Math.min(px, qx) - rr), x1 = cx(Math.max(px, qx) + rr);
+        int y0 = cy(Math.min(py, qy) - rr), y1 = cy(Math.max(py, qy) + rr);
+
+        double[] ax = this.ax, ay = this.ay, bx = this.bx, by = this.by;
+        int[] cells = this.cells, items = this.items;
+        boolean ca = ex != null;
+        exc &= ca;
+        if (ca) ex.ensure(sl);
+        double hd = d, hx = 0d, hy = 0d;
+        int hi = -1;
+        for (int y = y0; y <= y1; y++) {
+            for (int k = cells[y * gw + x0], kl = cells[y * gw + x1 + 1]; k < kl; k++) {
+                int si = items[k];
+                if (ca && ex.excluded(si)) continue;
+                double ts = CMath.sweep(t, ax[k], ay[k], bx[k], by[k], px, py, dx, dy, rr, clamp);
+                if (ts == CMath.BEHIND) {
+                    if (exc) ex.exclude(si);
+                    continue;
+                }
+                if (ts < 0d || ts > hd) continue;
+                hd = ts;
+                hi = si;
+                hx = t[3];
+                hy = t[4];
+            }
+        }
+
+        if (hi < 0) return -1;
+        t[0] = px + dx * hd;
+        t[1] = py + dy * hd;
+        t[2] = hd;
+        t[3] = hx;
+        t[4] = hy;
+        return hi;
+    }
+
+    public int distToShape(double[] t, ExclusionMask ex, double px, double py, double dx, double dy, double d, boolean clamp, boolean exc) {
+        if (il == 0) return -1;
+        double rr = Math.sqrt(d);
+        int x0 = cx(px - rr), x1 = cx(px + rr);
+        int y0 = cy(py - rr), y1 = cy(py + rr);
+
+        int[] cells = this.cells, items = this.items;
+        // Without exclusions every listed segment counts, search whole rows at once
+        if (ex == null) {
+            DistKernel kn = DistKernel.get();
+            int fk = -1;
+            for (int y = y0; y <= y1; y++) {
+                int k = kn.nearest(t, ax, ay, bx, by, cells[y * gw + x0], cells[y * gw + x1 + 1],
+                        px, py, dx, dy, d, clamp);
+                if (k < 0) continue;
+                fk = k;
+                d = t[2];
+            }
+            return fk >= 0 ? items[fk] : -1;
+        }
+
+        ex.ensure(sl);
+        double[] ax = this.ax, ay = this.ay, bx = this.bx, by = this.by;
+        boolean cd = dx != 0d || dy != 0d;
+        int fi = -1;
+        for (int y = y0; y <= y1; y++) {
+            for (int k = cells[y * gw + x0], kl = cells[y * gw + x1 + 1]; k < kl; k++) {
+                int si = items[k];
+                if (ex.excluded(si)) continue;
+                double sx = ax[k], sy = ay[k];
+                double v1x = bx[k] - sx, v1y = by[k] - sy;
+                double v2x = px - sx, v2y = py - sy;
+                double ps = CMath.projScale(v1x, v1y, v2x, v2y);
+                if (clamp) ps = CMath.clamp(ps, 0d, 1d);
+                double tx = v1x * ps, ty = v1y * ps;
+                double dtx = tx - v2x, dty = ty - v2y;
+                double dtl = dtx * dtx + dty * dty;
+                if (dtl > d) continue;
+                if (cd && dtx * dx + dty * dy < 0d) {
+                    if (exc) ex.exclude(si);
+                    continue;
+                }
+                d = dtl;
+                fi = si;
+                t[3] = tx + sx;
+                t[4] = ty + sy;
+                t[2] = dtl;
+                t[0] = dtx;
+                t[1] = dty;
+            }
+        }
+        return fi;
+    }
+}
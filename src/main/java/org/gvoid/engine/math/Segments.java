@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gvoid.engine.math;
+
+/*
+ * Independent segments stored as structure of arrays. Unlike a CMath
+ * polyline there are no skip bits, every stored segment is live, so the
+ * query loops carry no per segment branch and the coordinates stream
+ * straight into the DistKernel. The optional exclusion mask passed to the
+ * queries is indexed by segment.
+ */
+public class Segments {
+    public double[] x1, y1, x2, y2;
+    public int size;
+
+    public Segments(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+
+        x1 = new double[capacity];
+        y1 = new double[capacity];
+        x2 = new double[capacity];
+        y2 = new double[capacity];
+    }
+
+    public int capacity() {
+        return x1.length;
+    }
+
+    public void ensure(int amount) {
+        int l = size, c = x1.length;
+        if (l + amount <= c) return;
+        int nc = Math.max(l + amount, c * 2) + 2;
+        x1 = copy(x1, l, nc);
+        y1 = copy(y1, l, nc);
+        x2 = copy(x2, l, nc);
+        y2 = copy(y2, l, nc);
+    }
+
+    private static double[] copy(double[] a, int l, int nc) {
+        double[] n = new double[nc];
+        System.arraycopy(a, 0, n, 0, l);
+        return n;
+    }
+
+    public int add(double x1, double y1, double x2, double y2) {
+        ensure(1);
+        int i = size++;
+        this.x1[i] = x1;
+        this.y1[i] = y1;
+        this.x2[i] = x2;
+        this.y2[i] = y2;
+        return i;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int castSphere(double[] t, ExclusionMask ex, double px, double py, double dx, double dy, double d, double r, boolean clamp, boolean exc) {
+        double dl = dx * dx + dy * dy;
+        if (dl == 0d) return -1;
+        else if (dl != 1d) {
+            dl = Math.pow(dl, 0.5d);
+            dx /= dl;
+            dy /= dl;
+        }
+
+        double[] x1 = this.x1, y1 = this.y1, x2 = this.x2, y2 = this.y2;
+        boolean ca = ex != null;
+        exc &= ca;
+        if (ca) ex.ensure(size);
+        double rr = r + CMath.PRECISION, hd = d, hx = 0d, hy = 0d;
+        int hi = -1;
+        for (int i = 0, l = size; i < l; i++) {
+            if (ca && ex.excluded(i)) continue;
+            double ts = CMath.sweep(t, x1[i], y1[i], x2[i], y2[i], px, py, dx, dy, rr, clamp);
+            if (ts == CMath.BEHIND) {
+                if (exc) ex.exclude(i);
+                continue;
+            }
+            if (ts < 0d || ts > hd) continue;
+            hd = ts;
+            hi = i;
+            hx = t[3];
+            hy = t[4];
+        }
+
+        if (hi < 0) return -1;
+        t[0] = px + dx * hd;
+        t[1] = py + dy * hd;
+        t[2] = hd;
+        t[3] = hx;
+        t[4] = hy;
+        return hi;
+    }
+
+    public int distToShape(double[] t, ExclusionMask ex, double px, double py, double dx, double dy, double d, boolean clamp, boolean exc) {
+        if (ex == null) return DistKernel.get().nearest(t, x1, y1, x2, y2, 0, size, px, py, dx, dy, d, clamp);
+
+        ex.ensure(size);
+        double[] x1 = this.x1, y1 = this.y1, x2 = this.x2, y2 = this.y2;
+        boolean cd = dx != 0d || dy != 0d;
+        int fi = -1;
+        for (int i = 0, l = size; i < l; i++) {
+            if (ex.excluded(i)) continue;
+            double sx = x1[i], sy = y1[i];
+            double v1x = x2[i] - sx, v1y = y2[i] - sy;
+            double v2x = px - sx, v2y = py - sy;
+            double ps = CMath.projScale(v1x, v1y, v2x, v2y);
+            if (clamp) ps = CMath.clamp(ps, 0d, 1d);
+            double tx = v1x * ps, ty = v1y * ps;
+            double dtx = tx - v2x, dty = ty - v2y;
+            double dtl = dtx * dtx + dty * dty;
+            if (dtl > d) continue;
+            if (cd && dtx * dx + dty * dy < 0d) {
+                if (exc) ex.exclude(i);
+                continue;
+            }
+            d = dtl;
+            fi = i;
+            t[3] = tx + sx;
+            t[4] = ty + sy;
+            t[2] = dtl;
+            t[0] = dtx;
+            t[1] = dty;
+        }
+        return fi;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gvoid.engine.utils;
+
+import java.awt.*;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+
+import static org.gvoid.engine.utils.ColorUtils.A_SHIFT;
+import static org.gvoid.engine.utils.ColorUtils.B_MASK;
+import static org.gvoid.engine.utils.ColorUtils.B_SHIFT;
+import static org.gvoid.engine.utils.ColorUtils.COMP_MASK;
+import static org.gvoid.engine.utils.ColorUtils.G_MASK;
+import static org.gvoid.engine.utils.ColorUtils.G_SHIFT;
+import static org.gvoid.engine.utils.ColorUtils.R_MASK;
+import static org.gvoid.engine.utils.ColorUtils.R_SHIFT;
+
+/*
+ * Source over, with the color of every source pixel replaced by a fixed
+ * color. Only the alpha of the source is used, so a mask image (white on
+ * transparent) can be drawn in any color without keeping a tinted copy.
+ * Integer packed rasters are blended directly, other formats go through
+ * their color models.
+ */
+public final class TintComposite implements Composite {
+    private final Color color;
+
+    public TintComposite(Color color) {
+        if (color == null) {
+            throw new NullPointerException("Color must not be null");
+        }
+        this.color = color;
+    }
+
+    public Color getColor() {
+        return color;
+    }
+
+    @Override
+    public CompositeContext createContext(ColorModel srcColorModel, ColorModel dstColorModel, RenderingHints hints) {
+        return new Context(color.getRGB(), srcColorModel, dstColorModel);
+    }
+
+    private static final class Context implements CompositeContext {
+        private final int tint, ta;
+        private final ColorModel srcModel, dstModel;
+        private final boolean packed, dstAlpha, dstPre;
+
+        private int[] srcRow, dstRow;
+
+        Context(int tint, ColorModel srcModel, ColorModel dstModel) {
+            this.tint = tint;
+            this.ta = tint >>> A_SHIFT;
+            this.srcModel = srcModel;
+            this.dstModel = dstModel;
+            this.packed = packed(srcModel) && packed(dstModel);
+            this.dstAlpha = dstModel.hasAlpha();
+            this.dstPre = dstModel.isAlphaPremultiplied();
+        }
+
+        private static boolean packed(ColorModel model) {
+            if (!(model instanceof DirectColorModel)) return false;
+            DirectColorModel m = (DirectColorModel) model;
+            return m.getTransferType() == DataBuffer.TYPE_INT
+                    && m.getRedMask() == R_MASK && m.getGreenMask() == G_MASK && m.getBlueMask() == B_MASK
+                    && (!m.hasAlpha() || m.getAlphaMask() == COMP_MASK << A_SHIFT);
+        }
+
+        @Override
+        public void compose(Raster src, Raster dstIn, WritableRaster dstOut) {
+            int w = Math.min(src.getWidth(), dstIn.getWidth());
+            int h = Math.min(src.getHeight(), dstIn.getHeight());
+            if (packed) composePacked(src, dstIn, dstOut, w, h);
+            else composeModels(src, dstIn, dstOut, w, h);
+        }
+
+        private void composePacked(Raster src, Raster dstIn, WritableRaster dstOut, int w, int h) {
+            int[] s = srcRow, d = dstRow;
+            if (s == null || s.length < w) srcRow = s = new int[w];
+            if (d == null || d.length < w) dstRow = d = new int[w];
+            boolean srcAlpha = srcModel.hasAlpha();
+
+            int sx = src.getMinX(), sy = src.getMinY();
+            int dx = dstIn.getMinX(), dy = dstIn.getMinY();
+            int ox = dstOut.getMinX(), oy = dstOut.getMinY();
+            for (int y = 0; y < h; y++) {
+                src.getDataElements(sx, sy + y, w, 1, s);
+                dstIn.getDataElements(dx, dy + y, w, 1, d);
+                for (int x = 0; x < w; x++) {
+                    int a = srcAlpha ? s[x] >>> A_SHIFT : COMP_MASK;
+                    if (a == 0) continue;
+                    int p = d[x];
+                    if (!dstAlpha) p |= COMP_MASK << A_SHIFT;
+                    else if (dstPre) p = unpremultiply(p);
+                    p = blend(p, a);
+                    d[x] = dstPre ? premultiply(p) : p;
+                }
+                dstOut.setDataElements(ox, oy + y, w, 1, d);
+            }
+        }
+
+        private void composeModels(Raster src, Raster dstIn, WritableRaster dstOut, int w, int h) {
+            ColorModel sm = srcModel, dm = dstModel;
+            Object sp = null, dp = null;
+
+            int sx = src.getMinX(), sy = src.getMinY();
+            int dx = dstIn.getMinX(), dy = dstIn.getMinY();
+            int ox = dstOut.getMinX(), oy = dstOut.getMinY();
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    sp = src.getDataElements(sx + x, sy + y, sp);
+                    dp = dstIn.getDataElements(dx + x, dy + y, dp);
+                    int a = sm.getAlpha(sp);
+                    if (a != 0) dp = dm.getDataElements(blend(dm.getRGB(dp), a), dp);
+                    dstOut.setDataElements(ox + x, oy + y, dp);
+                }
+            }
+        }
+
+        /* Blends the tint with the source alpha over a non-premultiplied ARGB pixel */
+        private int blend(int p, int sa) {
+            int a = div255(sa * ta);
+            if (a == 0) return p;
+            int da = div255((p >>> A_SHIFT) * (COMP_MASK - a));
+            int oa = a + da;
+
+            int t = tint;
+            int r = (((t >> R_SHIFT) & COMP_MASK) * a + ((p >> R_SHIFT) & COMP_MASK) * da + oa / 2) / oa;
+            int g = (((t >> G_SHIFT) & COMP_MASK) * a + ((p >> G_SHIFT) & COMP_MASK) * da + oa / 2) / oa;
+            int b = (((t >> B_SHIFT) & COMP_MASK) * a + ((p >> B_SHIFT) & COMP_MASK) * da + oa / 2) / oa;
+            return oa << A_SHIFT | r << R_SHIFT | g << G_SHIFT | b << B_SHIFT;
+        }
+
+        private static int premultiply(int p) {
+            int a = p >>> A_SHIFT;
+            if (a == COMP_MASK) return p;
+            int r = div255(((p >> R_SHIFT) & COMP_MASK) * a);
+            int g = div255(((p >> G_SHIFT) & COMP_MASK) * a);
+            int b = div255(((p >> B_SHIFT) & COMP_MASK) * a);
+            return a << A_SHIFT | r << R_SHIFT | g << G_SHIFT | b << B_SHIFT;
+        }
+
+        private static int unpremultiply(int p) {
+            int a = p >>> A_SHIFT;
+            if (a == COMP_MASK || a == 0) return p;
+            int r = Math.min((((p >> R_SHIFT) & COMP_MASK) * COMP_MASK + a / 2) / a, COMP_MASK);
+            int g = Math.min((((p >> G_SHIFT) & COMP_MASK) * COMP_MASK + a / 2) / a, COMP_MASK);
+            int b = Math.min((((p >> B_SHIFT) & COMP_MASK) * COMP_MASK + a / 2) / a, COMP_MASK);
+            return a << A_SHIFT | r << R_SHIFT | g << G_SHIFT | b << B_SHIFT;
+        }
+
+        private static int div255(int v) {
+            return (v + 127) / 255;
+        }
+
+        @Override
+        public void dispose() {
+            srcRow = dstRow = null;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2021 GVoid (Pascal Gerner).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gvoid.engine.math;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * Lane-wise version of the scalar kernel. Every block is compared against
+ * the best distance found so far and its candidates are resolved in order,
+ * so it picks exactly the segment the scalar loop picks.
+ */
+public final class VectorDistKernel extends DistKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /* Lane spill buffer, the kernel is shared so each thread gets its own */
+    private final ThreadLocal<double[]> lanes = ThreadLocal.withInitial(() -> new double[SPECIES.length()]);
+
+    @Override
+    public int nearest(double[] t, double[] ax, double[] ay, double[] bx, double[] by, int from, int to,
+                       double px, double py, double dx, double dy, double d, boolean clamp) {
+        VectorSpecies<Double> sp = SPECIES;
+        int vl = sp.length();
+        boolean cd = dx != 0d || dy != 0d;
+        int fi = -1, i = from;
+
+        DoubleVector vpx = DoubleVector.broadcast(sp, px), vpy = DoubleVector.broadcast(sp, py);
+        DoubleVector zero = DoubleVector.zero(sp), one = DoubleVector.broadcast(sp, 1d);
+        double[] dl = lanes.get();
+        for (int ub = from + sp.loopBound(to - from); i < ub; i += vl) {
+            DoubleVector sx = DoubleVector.fromArray(sp, ax, i), sy = DoubleVector.fromArray(sp, ay, i);
+            DoubleVector v1x = DoubleVector.fromArray(sp, bx, i).sub(sx);
+            DoubleVector v1y = DoubleVector.fromArray(sp, by, i).sub(sy);
+            DoubleVector v2x = vpx.sub(sx), v2y = vpy.sub(sy);
+
+            DoubleVector ds = v1x.mul(v1x).add(v1y.mul(v1y));
+            DoubleVector ps = v1x.mul(v2x).add(v1y.mul(v2y)).div(ds)
+                    .blend(zero, ds.compare(VectorOperators.EQ, 0d));
+            if (clamp) ps = ps.blend(zero, ps.compare(VectorOperators.LT, 0d)).min(one);
+
+            DoubleVector dtx = v1x.mul(ps).sub(v2x), dty = v1y.mul(ps).sub(v2y);
+            DoubleVector dtl = dtx.mul(dtx).add(dty.mul(dty));
+
+            VectorMask<Double> m = dtl.compare(VectorOperators.LE, d);
+            if (cd) m = m.andNot(dtx.mul(dx).add(dty.mul(dy)).compare(VectorOperators.LT, 0d));
+            if (!m.anyTrue()) continue;
+
+            dtl.intoArray(dl, 0);
+            for (int j = 0; j < vl; j++) {
+                if (m.laneIsSet(j) && dl[j] <= d) {
+                    d = dl[j];
+                    fi = i + j;
+                }
+            }
+        }
+
+        for (; i < to; i++) {
+            double sx = ax[i], sy = ay[i];
+            double v1x = bx[i] - sx, v1y = by[i] - sy;
+            double v2x = px - sx, v2y = py - sy;
+            double ps = CMath.projScale(v1x, v1y, v2x, v2y);
+            if (clamp) ps = CMath.clamp(ps, 0d, 1d);
+            double dtx = v1x * ps - v2x, dty = v1y * ps - v2y;
+            double dtl = dtx * dtx + dty * dty;
+            if (dtl > d) continue;
+            if (cd && dtx * dx + dty * dy < 0d) continue;
+            d = dtl;
+            fi = i;
+        }
+
+        if (fi >= 0) write(t, ax, ay, bx, by, fi, px, py, clamp);
+        return fi;
+    }
+}